@@ -0,0 +1,261 @@
+package llb.tdd.di.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * @author LiLuBing
+ * @PackageName: llb.tdd.di.processor
+ * @Description: Generates a ComponentFactory for every class with @Inject members that can be
+ * constructed and injected without reflection. Classes it cannot handle (private members,
+ * injectable superclasses, generic components, illegal components) are skipped and keep
+ * using InjectionProvider at runtime. Every generated factory is listed by the component's binary
+ * name in the META-INF/llb.tdd.di/factories resource, so the container finds it without probing
+ * class names.
+ * @ClassName: ComponentFactoryProcessor
+ * @date 2022-11-14 9:02:51
+ * @ProjectName 01-di-container
+ * @Version V1.0
+ */
+@SupportedAnnotationTypes(ComponentFactoryProcessor.INJECT)
+public class ComponentFactoryProcessor extends AbstractProcessor {
+    static final String INJECT = "jakarta.inject.Inject";
+    static final String QUALIFIER = "jakarta.inject.Qualifier";
+    static final String FACTORIES = "META-INF/llb.tdd.di/factories";
+
+    private final Set<String> generated = new HashSet<>();
+    private final Map<String, String> factories = new TreeMap<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        if (round.processingOver()) {
+            writeFactories();
+            return false;
+        }
+        TypeElement inject = processingEnv.getElementUtils().getTypeElement(INJECT);
+        if (inject == null) {
+            return false;
+        }
+        Set<TypeElement> components = new LinkedHashSet<>();
+        for (Element element : round.getElementsAnnotatedWith(inject)) {
+            if (element.getEnclosingElement() instanceof TypeElement component) {
+                components.add(component);
+            }
+        }
+        for (TypeElement component : components) {
+            if (generated.add(component.getQualifiedName().toString())) {
+                generate(component).ifPresent(factory -> write(component, factory));
+            }
+        }
+        return false;
+    }
+
+    private Optional<Factory> generate(TypeElement component) {
+        if (!isInstantiable(component) || hasInjectableSuperclass(component)) {
+            return Optional.empty();
+        }
+        List<ExecutableElement> constructors = ElementFilter.constructorsIn(component.getEnclosedElements()).stream()
+                .filter(c -> isInjectable(c) && c.getModifiers().contains(Modifier.PUBLIC)).toList();
+        if (constructors.size() > 1) {
+            return Optional.empty();
+        }
+        Optional<ExecutableElement> constructor = constructors.stream().findFirst().or(() -> defaultConstructor(component));
+        List<VariableElement> fields = ElementFilter.fieldsIn(component.getEnclosedElements()).stream().filter(this::isInjectable).toList();
+        List<ExecutableElement> methods = ElementFilter.methodsIn(component.getEnclosedElements()).stream().filter(this::isInjectable).toList();
+        if (constructor.isEmpty() || !isAccessible(constructor.get())
+                || !fields.stream().allMatch(f -> isAccessible(f) && !f.getModifiers().contains(Modifier.FINAL))
+                || !methods.stream().allMatch(m -> isAccessible(m) && m.getTypeParameters().isEmpty() && !m.getModifiers().contains(Modifier.ABSTRACT))) {
+            return Optional.empty();
+        }
+
+        Factory factory = new Factory(component);
+        List<String> arguments = new ArrayList<>();
+        for (VariableElement parameter : constructor.get().getParameters()) {
+            arguments.add(factory.dependency(parameter));
+        }
+        factory.body.append("        ").append(factory.type).append(" instance = new ").append(factory.type)
+                .append("(").append(String.join(", ", arguments)).append(");\n");
+        for (VariableElement field : fields) {
+            factory.body.append("        instance.").append(field.getSimpleName()).append(" = ").append(factory.dependency(field)).append(";\n");
+        }
+        for (ExecutableElement method : methods) {
+            List<String> parameters = new ArrayList<>();
+            for (VariableElement parameter : method.getParameters()) {
+                parameters.add(factory.dependency(parameter));
+            }
+            factory.body.append("        instance.").append(method.getSimpleName()).append("(").append(String.join(", ", parameters)).append(");\n");
+        }
+        return factory.valid ? Optional.of(factory) : Optional.empty();
+    }
+
+    private void write(TypeElement component, Factory factory) {
+        try (Writer writer = processingEnv.getFiler().createSourceFile(factory.qualifiedName(), component).openWriter()) {
+            writer.write(factory.source());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        factories.put(processingEnv.getElementUtils().getBinaryName(component).toString(), factory.qualifiedName());
+    }
+
+    private void writeFactories() {
+        if (factories.isEmpty()) {
+            return;
+        }
+        try (Writer writer = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", FACTORIES).openWriter()) {
+            for (Map.Entry<String, String> factory : factories.entrySet()) {
+                writer.write(factory.getKey() + "=" + factory.getValue() + "\n");
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private boolean isInstantiable(TypeElement component) {
+        if (component.getKind() != ElementKind.CLASS || component.getModifiers().contains(Modifier.ABSTRACT)
+                || !component.getTypeParameters().isEmpty()) {
+            return false;
+        }
+        for (Element current = component; current instanceof TypeElement type; current = current.getEnclosingElement()) {
+            if (type.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            if (type.getNestingKind() == NestingKind.MEMBER && type == component && !type.getModifiers().contains(Modifier.STATIC)) {
+                return false;
+            }
+            if (type.getNestingKind() == NestingKind.LOCAL || type.getNestingKind() == NestingKind.ANONYMOUS) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean hasInjectableSuperclass(TypeElement component) {
+        TypeMirror superclass = component.getSuperclass();
+        while (superclass.getKind() == TypeKind.DECLARED) {
+            TypeElement type = (TypeElement) ((DeclaredType) superclass).asElement();
+            if (type.getEnclosedElements().stream().anyMatch(this::isInjectable)) {
+                return true;
+            }
+            superclass = type.getSuperclass();
+        }
+        return false;
+    }
+
+    private Optional<ExecutableElement> defaultConstructor(TypeElement component) {
+        return ElementFilter.constructorsIn(component.getEnclosedElements()).stream()
+                .filter(c -> c.getParameters().isEmpty()).findFirst();
+    }
+
+    private boolean isInjectable(Element element) {
+        return element.getAnnotationMirrors().stream().anyMatch(a -> nameOf(a).equals(INJECT));
+    }
+
+    private boolean isAccessible(Element element) {
+        return !element.getModifiers().contains(Modifier.PRIVATE) && !element.getModifiers().contains(Modifier.STATIC);
+    }
+
+    private static String nameOf(AnnotationMirror annotation) {
+        return ((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().toString();
+    }
+
+    private static boolean isQualifier(AnnotationMirror annotation) {
+        return annotation.getAnnotationType().asElement().getAnnotationMirrors().stream().anyMatch(a -> nameOf(a).equals(QUALIFIER));
+    }
+
+    private static boolean isNameable(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return true;
+        }
+        if (type.getKind() != TypeKind.DECLARED) {
+            return false;
+        }
+        for (Element current = ((DeclaredType) type).asElement(); current instanceof TypeElement element; current = current.getEnclosingElement()) {
+            if (element.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+        }
+        return ((DeclaredType) type).getTypeArguments().stream().allMatch(ComponentFactoryProcessor::isNameable);
+    }
+
+    private class Factory {
+        private final String packageName;
+        private final String simpleName;
+        private final String type;
+        private final List<String> dependencies = new ArrayList<>();
+        private final StringBuilder holders = new StringBuilder();
+        private final StringBuilder body = new StringBuilder();
+        private boolean valid = true;
+
+        Factory(TypeElement component) {
+            String binaryName = processingEnv.getElementUtils().getBinaryName(component).toString();
+            this.packageName = processingEnv.getElementUtils().getPackageOf(component).getQualifiedName().toString();
+            this.simpleName = binaryName.substring(packageName.isEmpty() ? 0 : packageName.length() + 1).replace("_", "__").replace('$', '_') + "_Factory";
+            this.type = component.getQualifiedName().toString();
+        }
+
+        String qualifiedName() {
+            return packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        }
+
+        String dependency(VariableElement element) {
+            TypeMirror type = element.asType();
+            List<? extends AnnotationMirror> qualifiers = element.getAnnotationMirrors().stream().filter(ComponentFactoryProcessor::isQualifier).toList();
+            if (qualifiers.size() > 1 || !isNameable(type)) {
+                valid = false;
+                return "null";
+            }
+            int index = dependencies.size();
+            if (qualifiers.isEmpty() && (type.getKind().isPrimitive() || ((DeclaredType) type).getTypeArguments().isEmpty())) {
+                dependencies.add("ComponentRef.of(" + processingEnv.getTypeUtils().erasure(type) + ".class)");
+            } else {
+                String holder = "dependency" + index;
+                qualifiers.forEach(q -> holders.append("    ").append(q).append("\n"));
+                holders.append("    private static ").append(type).append(" ").append(holder).append(";\n");
+                dependencies.add("ComponentFactory.dependency(" + simpleName + ".class, \"" + holder + "\")");
+            }
+            return "(" + type + ") dependencies[" + index + "]";
+        }
+
+        String source() {
+            StringBuilder source = new StringBuilder();
+            if (!packageName.isEmpty()) {
+                source.append("package ").append(packageName).append(";\n\n");
+            }
+            source.append("import llb.tdd.di.ComponentFactory;\n")
+                    .append("import llb.tdd.di.ComponentRef;\n\n")
+                    .append("@javax.annotation.processing.Generated(\"").append(ComponentFactoryProcessor.class.getName()).append("\")\n")
+                    .append("public final class ").append(simpleName).append(" implements ComponentFactory<").append(type).append("> {\n")
+                    .append(holders).append(holders.isEmpty() ? "" : "\n")
+                    .append("    private static final java.util.List<ComponentRef<?>> DEPENDENCIES = java.util.List.<ComponentRef<?>>of(")
+                    .append(dependencies.isEmpty() ? "" : "\n            ").append(String.join(",\n            ", dependencies)).append(");\n\n")
+                    .append("    @Override\n")
+                    .append("    public java.util.List<ComponentRef<?>> getDependencies() {\n")
+                    .append("        return DEPENDENCIES;\n")
+                    .append("    }\n\n")
+                    .append("    @Override\n")
+                    .append("    @SuppressWarnings(\"unchecked\")\n")
+                    .append("    public ").append(type).append(" create(Object[] dependencies) {\n")
+                    .append(body)
+                    .append("        return instance;\n")
+                    .append("    }\n")
+                    .append("}\n");
+            return source.toString();
+        }
+    }
+}
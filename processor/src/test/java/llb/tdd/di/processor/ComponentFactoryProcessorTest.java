@@ -0,0 +1,223 @@
+package llb.tdd.di.processor;
+
+import jakarta.inject.Provider;
+import llb.tdd.di.ComponentRef;
+import llb.tdd.di.Context;
+import llb.tdd.di.ContextConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author LiLuBing
+ * @PackageName: llb.tdd.di.processor
+ * @Description:
+ * @ClassName: ComponentFactoryProcessorTest
+ * @date 2022-11-14 10:20:36
+ * @ProjectName 01-di-container
+ * @Version V1.0
+ */
+public class ComponentFactoryProcessorTest {
+    @TempDir
+    Path sources;
+
+    @TempDir
+    Path classes;
+
+    ClassLoader loader;
+
+    @BeforeEach
+    public void compile() throws IOException {
+        source("Dependency", "public interface Dependency {}");
+        source("Component", """
+                public class Component {
+                    public final String createdBy = new Throwable().getStackTrace()[1].getClassName();
+                    final Dependency constructor;
+                    @jakarta.inject.Inject @jakarta.inject.Named("field") Dependency field;
+                    jakarta.inject.Provider<Dependency> method;
+
+                    @jakarta.inject.Inject
+                    public Component(Dependency constructor) {
+                        this.constructor = constructor;
+                    }
+
+                    @jakarta.inject.Inject
+                    void install(jakarta.inject.Provider<Dependency> method) {
+                        this.method = method;
+                    }
+                }""");
+        source("Outer", """
+                public class Outer {
+                    public static class Nested {
+                        public final String createdBy = new Throwable().getStackTrace()[1].getClassName();
+                        @jakarta.inject.Inject Dependency dependency;
+                    }
+                }""");
+        source("Outer_Nested", """
+                public class Outer_Nested {
+                    public final String createdBy = new Throwable().getStackTrace()[1].getClassName();
+                    @jakarta.inject.Inject Dependency dependency;
+                }""");
+        source("PrivateField", """
+                public class PrivateField {
+                    @jakarta.inject.Inject private Dependency dependency;
+                }""");
+        source("InjectableSuperclass", """
+                public class InjectableSuperclass extends Outer.Nested {
+                    @jakarta.inject.Inject void install() {}
+                }""");
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        List<String> arguments = new java.util.ArrayList<>(List.of("-d", classes.toString(),
+                "-classpath", System.getProperty("java.class.path"),
+                "-processor", ComponentFactoryProcessor.class.getName(), "-s", classes.toString()));
+        try (var files = Files.list(sources.resolve("sample"))) {
+            files.map(Path::toString).forEach(arguments::add);
+        }
+        assertEquals(0, compiler.run(null, null, errors, arguments.toArray(String[]::new)), errors.toString());
+        loader = new URLClassLoader(new URL[]{classes.toUri().toURL()}, getClass().getClassLoader());
+    }
+
+    private void source(String name, String body) throws IOException {
+        Path file = sources.resolve("sample").resolve(name + ".java");
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, "package sample;\n\n" + body + "\n");
+    }
+
+    private Class<Object> load(String name) throws ClassNotFoundException {
+        return (Class<Object>) loader.loadClass("sample." + name);
+    }
+
+    @Nested
+    public class Generation {
+        @Test
+        public void should_generate_factory_for_component_with_inject_members() throws Exception {
+            assertNotNull(load("Component_Factory"));
+            assertNotNull(load("Outer_Nested_Factory"));
+        }
+
+        @Test
+        public void should_generate_distinct_factories_for_nested_and_underscored_components() throws Exception {
+            assertSame(load("Outer$Nested"), load("Outer_Nested_Factory").getMethod("create", Object[].class).getReturnType());
+            assertSame(load("Outer_Nested"), load("Outer__Nested_Factory").getMethod("create", Object[].class).getReturnType());
+        }
+
+        @Test
+        public void should_not_generate_factory_if_inject_member_is_private() {
+            assertThrows(ClassNotFoundException.class, () -> load("PrivateField_Factory"));
+        }
+
+        @Test
+        public void should_not_generate_factory_if_superclass_has_inject_members() {
+            assertThrows(ClassNotFoundException.class, () -> load("InjectableSuperclass_Factory"));
+        }
+
+        @Test
+        public void should_list_generated_factories_by_component_binary_name() throws Exception {
+            java.util.Properties factories = new java.util.Properties();
+            try (var input = Files.newInputStream(classes.resolve(ComponentFactoryProcessor.FACTORIES))) {
+                factories.load(input);
+            }
+            assertEquals("sample.Component_Factory", factories.get("sample.Component"));
+            assertEquals("sample.Outer_Nested_Factory", factories.get("sample.Outer$Nested"));
+            assertEquals("sample.Outer__Nested_Factory", factories.get("sample.Outer_Nested"));
+            assertFalse(factories.containsKey("sample.PrivateField"));
+            assertFalse(factories.containsKey("sample.InjectableSuperclass"));
+        }
+    }
+
+    @Nested
+    public class Binding {
+        Context context;
+        Object dependency;
+        Object named;
+
+        @BeforeEach
+        public void bind() throws Exception {
+            Class<Object> dependencyType = load("Dependency");
+            dependency = proxy(dependencyType);
+            named = proxy(dependencyType);
+            ContextConfig config = new ContextConfig();
+            config.bind(dependencyType, dependency);
+            config.bind(dependencyType, named, new NamedLiteral("field"));
+            bind(config, load("Component"));
+            bind(config, load("Outer$Nested"));
+            bind(config, load("Outer_Nested"));
+            bind(config, load("PrivateField"));
+            context = config.getContext();
+        }
+
+        private <T> void bind(ContextConfig config, Class<T> component) {
+            config.bind(component, component);
+        }
+
+        private Object proxy(Class<Object> type) {
+            return java.lang.reflect.Proxy.newProxyInstance(loader, new Class[]{type}, (p, m, a) -> null);
+        }
+
+        @Test
+        public void should_create_component_via_generated_factory() throws Exception {
+            Object component = context.get(ComponentRef.of(load("Component"))).get();
+            assertEquals("sample.Component_Factory", field(component, "createdBy"));
+            assertSame(dependency, field(component, "constructor"));
+            assertSame(named, field(component, "field"));
+            assertSame(dependency, ((Provider<?>) field(component, "method")).get());
+        }
+
+        @Test
+        public void should_create_nested_component_via_generated_factory() throws Exception {
+            Object component = context.get(ComponentRef.of(load("Outer$Nested"))).get();
+            assertEquals("sample.Outer_Nested_Factory", field(component, "createdBy"));
+            assertSame(dependency, field(component, "dependency"));
+        }
+
+        @Test
+        public void should_create_underscored_component_via_its_own_factory() throws Exception {
+            Object component = context.get(ComponentRef.of(load("Outer_Nested"))).get();
+            assertEquals("sample.Outer__Nested_Factory", field(component, "createdBy"));
+            assertSame(dependency, field(component, "dependency"));
+        }
+
+        @Test
+        public void should_fall_back_to_reflection_if_no_factory_generated() throws Exception {
+            assertTrue(context.get(ComponentRef.of(load("PrivateField"))).isPresent());
+        }
+
+        private Object field(Object component, String name) throws ReflectiveOperationException {
+            var field = component.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            return field.get(component);
+        }
+    }
+
+    record NamedLiteral(String value) implements jakarta.inject.Named {
+        @Override
+        public Class<? extends java.lang.annotation.Annotation> annotationType() {
+            return jakarta.inject.Named.class;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof jakarta.inject.Named named && value.equals(named.value());
+        }
+
+        @Override
+        public int hashCode() {
+            return "value".hashCode() * 127 ^ value.hashCode();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package llb.tdd.di;
+
+import jakarta.inject.Provider;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * @author LiLuBing
+ * @PackageName: llb.tdd.di
+ * @Description: Hot paths of the container on a synthetic graph of configurable depth and fan-out,
+ * every node on a level depends on all nodes of the next level. Run with the GC profiler
+ * (default of the jmh task) to get gc.alloc.rate.norm, the allocation per operation.
+ * @ClassName: ContainerBenchmark
+ * @date 2022-11-15 9:40:18
+ * @ProjectName 01-di-container
+ * @Version V1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContainerBenchmark {
+    @Param({"2", "4"})
+    int depth;
+
+    @Param({"2", "4"})
+    int fanOut;
+
+    private ContextConfig config;
+    private Context context;
+    private Provider<Dependency> instanceHandle;
+    private Provider<ContextTest.TypeBinding.WithScope.SingletonAnnotated> singletonHandle;
+
+    private final ComponentRef<Dependency> instance = ComponentRef.of(Dependency.class);
+    private final ComponentRef<ContextTest.TypeBinding.ConstructorInjection> prototype = ComponentRef.of(ContextTest.TypeBinding.ConstructorInjection.class);
+    private final ComponentRef<ContextTest.TypeBinding.WithScope.SingletonAnnotated> singleton = ComponentRef.of(ContextTest.TypeBinding.WithScope.SingletonAnnotated.class);
+    private final ComponentRef<Dependency> qualified = ComponentRef.of(Dependency.class, new NamedLiteral("qualified"));
+    private final ComponentRef<Provider<Dependency>> provider = new ComponentRef<>() {
+    };
+    private final ComponentRef<Object> root = node(0, 0);
+
+    @Setup
+    public void setup() {
+        config = bind();
+        context = config.getContext();
+        instanceHandle = context.handle(instance).get();
+        singletonHandle = context.handle(singleton).get();
+    }
+
+    @Benchmark
+    public ContextConfig bind() {
+        ContextConfig config = new ContextConfig();
+        config.bind(Dependency.class, new Dependency() {
+        });
+        config.bind(Dependency.class, new Dependency() {
+        }, new NamedLiteral("qualified"));
+        config.bind(ContextTest.TypeBinding.ConstructorInjection.class, ContextTest.TypeBinding.ConstructorInjection.class);
+        config.bind(ContextTest.TypeBinding.WithScope.SingletonAnnotated.class, ContextTest.TypeBinding.WithScope.SingletonAnnotated.class);
+        for (int level = 0; level < depth; level++) {
+            for (int index = 0; index < fanOut; index++) {
+                List<ComponentRef<?>> dependencies = new ArrayList<>();
+                for (int next = 0; level + 1 < depth && next < fanOut; next++) {
+                    dependencies.add(node(level + 1, next));
+                }
+                config.bind(Object.class, List.of(new NamedLiteral(level + ":" + index)), new Node(dependencies));
+            }
+        }
+        return config;
+    }
+
+    /**
+     * Full validation and compilation of a config that has never built a context.
+     */
+    @Benchmark
+    public Context getContext(FreshConfig fresh) {
+        return fresh.config.getContext();
+    }
+
+    /**
+     * Incremental pass after one component has been bound again.
+     */
+    @Benchmark
+    public Context rebindAndGetContext() {
+        config.bind(Dependency.class, new Dependency() {
+        });
+        return config.getContext();
+    }
+
+    @Benchmark
+    public Object getInstance() {
+        return context.get(instance).get();
+    }
+
+    @Benchmark
+    public Object getInstanceViaHandle() {
+        return instanceHandle.get();
+    }
+
+    @Benchmark
+    public Object getPrototype() {
+        return context.get(prototype).get();
+    }
+
+    @Benchmark
+    public Object getSingleton() {
+        return context.get(singleton).get();
+    }
+
+    @Benchmark
+    public Object getSingletonViaHandle() {
+        return singletonHandle.get();
+    }
+
+    @Benchmark
+    public Object getQualified() {
+        return context.get(qualified).get();
+    }
+
+    @Benchmark
+    public Object getProvider() {
+        return context.get(provider).get();
+    }
+
+    @Benchmark
+    public Object getGraph() {
+        return context.get(root).get();
+    }
+
+    @State(Scope.Thread)
+    public static class FreshConfig {
+        ContextConfig config;
+
+        @Setup(Level.Invocation)
+        public void setup(ContainerBenchmark benchmark) {
+            config = benchmark.bind();
+        }
+    }
+
+    private static ComponentRef<Object> node(int level, int index) {
+        return ComponentRef.of(Object.class, new NamedLiteral(level + ":" + index));
+    }
+
+    /**
+     * Prototype node of the synthetic graph, resolves dependencies like InjectionProvider does.
+     */
+    static class Node implements ComponentProvider<Object> {
+        private final List<ComponentRef<?>> dependencies;
+        private final ComponentProvider<?>[] resolved;
+
+        Node(List<ComponentRef<?>> dependencies) {
+            this(dependencies, null);
+        }
+
+        private Node(List<ComponentRef<?>> dependencies, ComponentProvider<?>[] resolved) {
+            this.dependencies = dependencies;
+            this.resolved = resolved;
+        }
+
+        @Override
+        public Object get(Context context) {
+            Object[] instances = new Object[dependencies.size()];
+            for (int i = 0; i < instances.length; i++) {
+                instances[i] = resolved == null ? context.get(dependencies.get(i)).get() : resolved[i].get(context);
+            }
+            return instances;
+        }
+
+        @Override
+        public ComponentProvider<Object> compile(Function<ComponentRef<?>, ComponentProvider<?>> resolver) {
+            return new Node(dependencies, dependencies.stream().map(resolver).toArray(ComponentProvider<?>[]::new));
+        }
+
+        @Override
+        public List<ComponentRef<?>> getDependencies() {
+            return dependencies;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package llb.tdd.di;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author LiLuBing
+ * @PackageName: llb.tdd.di
+ * @Description: Compares the instantiation engines on the prototype components of the test suite
+ * @ClassName: InstantiationBenchmark
+ * @date 2022-11-13 10:05:31
+ * @ProjectName 01-di-container
+ * @Version V1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstantiationBenchmark {
+    @Param({"REFLECTION", "METHOD_HANDLE"})
+    InstantiationEngine engine;
+
+    private Context context;
+
+    @Setup
+    public void setup() {
+        ContextConfig config = new ContextConfig();
+        config.engine(engine);
+        config.bind(Dependency.class, new Dependency() {
+        });
+        config.bind(ComponentWithDefaultConstructor.class, ComponentWithDefaultConstructor.class);
+        config.bind(ContextTest.TypeBinding.ConstructorInjection.class, ContextTest.TypeBinding.ConstructorInjection.class);
+        config.bind(ContextTest.TypeBinding.FieldInjection.class, ContextTest.TypeBinding.FieldInjection.class);
+        config.bind(ContextTest.TypeBinding.MethodInjection.class, ContextTest.TypeBinding.MethodInjection.class);
+        config.bind(InjectionTest.Engines.InjectEverything.class, InjectionTest.Engines.InjectEverything.class);
+        context = config.getContext();
+    }
+
+    @Benchmark
+    public Object defaultConstructor() {
+        return context.get(ComponentRef.of(ComponentWithDefaultConstructor.class)).get();
+    }
+
+    @Benchmark
+    public Object constructorInjection() {
+        return context.get(ComponentRef.of(ContextTest.TypeBinding.ConstructorInjection.class)).get();
+    }
+
+    @Benchmark
+    public Object fieldInjection() {
+        return context.get(ComponentRef.of(ContextTest.TypeBinding.FieldInjection.class)).get();
+    }
+
+    @Benchmark
+    public Object methodInjection() {
+        return context.get(ComponentRef.of(ContextTest.TypeBinding.MethodInjection.class)).get();
+    }
+
+    @Benchmark
+    public Object constructorFieldAndMethodInjection() {
+        return context.get(ComponentRef.of(InjectionTest.Engines.InjectEverything.class)).get();
+    }
+}
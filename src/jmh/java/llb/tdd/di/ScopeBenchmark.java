@@ -0,0 +1,82 @@
+package llb.tdd.di;
+
+import jakarta.inject.Singleton;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author LiLuBing
+ * @PackageName: llb.tdd.di
+ * @Description: Scoped get from many threads at once. executionScopedTenGets opens an execution and looks the
+ * component up ten times in it, opening and discarding the execution included, threadScopedTenGets is its baseline.
+ * @ClassName: ScopeBenchmark
+ * @date 2022-11-20 9:05:37
+ * @ProjectName 01-di-container
+ * @Version V1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(64)
+@Fork(1)
+public class ScopeBenchmark {
+    @Singleton
+    public static class PerContext {
+    }
+
+    @ThreadScoped
+    public static class PerThread {
+    }
+
+    @ExecutionScoped
+    public static class PerExecution {
+    }
+
+    private Context context;
+
+    private final ComponentRef<PerContext> singleton = ComponentRef.of(PerContext.class);
+    private final ComponentRef<PerThread> thread = ComponentRef.of(PerThread.class);
+    private final ComponentRef<PerExecution> execution = ComponentRef.of(PerExecution.class);
+
+    @Setup
+    public void setup() {
+        ContextConfig config = new ContextConfig();
+        config.bind(PerContext.class, PerContext.class);
+        config.bind(PerThread.class, PerThread.class);
+        config.bind(PerExecution.class, PerExecution.class);
+        context = config.getContext();
+    }
+
+    @Benchmark
+    public Object singleton() {
+        return context.get(singleton).get();
+    }
+
+    @Benchmark
+    public Object threadScoped() {
+        return context.get(thread).get();
+    }
+
+    @Benchmark
+    public Object executionScopedTenGets() {
+        return ExecutionScope.get(() -> {
+            Object instance = null;
+            for (int i = 0; i < 10; i++) {
+                instance = context.get(execution).get();
+            }
+            return instance;
+        });
+    }
+
+    @Benchmark
+    public Object threadScopedTenGets() {
+        Object instance = null;
+        for (int i = 0; i < 10; i++) {
+            instance = context.get(thread).get();
+        }
+        return instance;
+    }
+}
@@ -0,0 +1,140 @@
+package llb.tdd.di;
+
+import jakarta.inject.Provider;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * @author LiLuBing
+ * @PackageName: llb.tdd.di
+ * @Description:
+ * @ClassName: Binding
+ * @date 2022-11-12 9:02:17
+ * @ProjectName 01-di-container
+ * @Version V1.0
+ */
+class Binding<T> implements ComponentProvider<T> {
+	private final Component component;
+	private final Compiled<T> compiled;
+	private final Provider<T> handle;
+	private final Optional<Provider<T>> lookup;
+
+	/**
+	 * A binding with a slot is request scoped, its instances are kept in that slot of the context it is called with.
+	 */
+	Binding(Component component, ComponentProvider<T> provider, int slot, Context context) {
+		this(component, new Compiled<>(provider, slot), context);
+	}
+
+	/**
+	 * The binding of a component carried over into a later context, it shares the compiled provider and
+	 * only its handle is bound to the new context. The binding of the previous context is left untouched.
+	 */
+	Binding(Binding<T> carried, Context context) {
+		this(carried.component, carried.compiled, context);
+	}
+
+	private Binding(Component component, Compiled<T> compiled, Context context) {
+		this.component = component;
+		this.compiled = compiled;
+		this.handle = () -> compiled.get(context);
+		this.lookup = Optional.of(handle);
+	}
+
+	void link(Function<ComponentRef<?>, ComponentProvider<?>> resolver) {
+		compiled.link(resolver);
+	}
+
+	/**
+	 * Compiled provider shared by the bindings of the component in every context it is carried into,
+	 * dependents resolve to it so they keep no context reachable.
+	 */
+	ComponentProvider<T> compiled() {
+		return compiled;
+	}
+
+	/**
+	 * Pre-bound to the context of this binding, get() allocates nothing beyond what the component itself does.
+	 */
+	Provider<T> handle() {
+		return handle;
+	}
+
+	/**
+	 * The handle wrapped once, returned for every Provider lookup of the component.
+	 */
+	Optional<Provider<T>> lookup() {
+		return lookup;
+	}
+
+	Component component() {
+		return component;
+	}
+
+	ComponentProvider<T> provider() {
+		return compiled.provider;
+	}
+
+	@Override
+	public T get(Context context) {
+		return compiled.get(context);
+	}
+
+	@Override
+	public Lease<T> lease(Context context) {
+		return compiled.lease(context);
+	}
+
+	@Override
+	public CompletableFuture<T> getAsync(Context context, Executor executor) {
+		return compiled.getAsync(context, executor);
+	}
+
+	@Override
+	public List<ComponentRef<?>> getDependencies() {
+		return compiled.provider.getDependencies();
+	}
+
+	/**
+	 * Linked once while the context that created it is constructed, before that context is published.
+	 */
+	private static class Compiled<T> implements ComponentProvider<T> {
+		private final ComponentProvider<T> provider;
+		private final int slot;
+		private ComponentProvider<T> compiled;
+
+		Compiled(ComponentProvider<T> provider, int slot) {
+			this.provider = provider;
+			this.slot = slot;
+		}
+
+		void link(Function<ComponentRef<?>, ComponentProvider<?>> resolver) {
+			ComponentProvider<T> created = provider.compile(resolver);
+			compiled = slot < 0 ? created : scoped -> ((CompiledContext) scoped).scoped(slot, created);
+		}
+
+		@Override
+		public T get(Context context) {
+			return compiled.get(context);
+		}
+
+		@Override
+		public Lease<T> lease(Context context) {
+			return compiled.lease(context);
+		}
+
+		@Override
+		public CompletableFuture<T> getAsync(Context context, Executor executor) {
+			return compiled.getAsync(context, executor);
+		}
+
+		@Override
+		public List<ComponentRef<?>> getDependencies() {
+			return provider.getDependencies();
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package llb.tdd.di;
+
+import java.util.Map;
+
+/**
+ * @author LiLuBing
+ * @PackageName: llb.tdd.di
+ * @Description: Immutable open addressing table of the bindings of a context. Keys and bindings are interleaved
+ * in one array at most half full, so a lookup probes adjacent slots and mostly compares interned components by identity.
+ * @ClassName: BindingTable
+ * @date 2022-11-23 8:40:16
+ * @ProjectName 01-di-container
+ * @Version V1.0
+ */
+final class BindingTable {
+    private final Object[] table;
+    private final int shift;
+
+    BindingTable(Map<Component, Binding<?>> bindings) {
+        int capacity = Math.max(2, Integer.highestOneBit(Math.max(1, bindings.size()) * 2 - 1) << 1);
+        this.table = new Object[capacity * 2];
+        this.shift = 32 - Integer.numberOfTrailingZeros(capacity);
+        bindings.forEach((component, binding) -> {
+            int i = index(component.hashCode());
+            while (table[i] != null) {
+                i = next(i);
+            }
+            table[i] = component;
+            table[i + 1] = binding;
+        });
+    }
+
+    Binding<?> get(Component component) {
+        return get(component, component.hashCode());
+    }
+
+    Binding<?> get(ComponentRef<?> ref) {
+        return get(ref.component(), ref.componentHash());
+    }
+
+    private Binding<?> get(Component component, int hash) {
+        for (int i = index(hash); ; i = next(i)) {
+            Object key = table[i];
+            if (key == component) {
+                return (Binding<?>) table[i + 1];
+            }
+            if (key == null) {
+                return null;
+            }
+            if (key.equals(component)) {
+                return (Binding<?>) table[i + 1];
+            }
+        }
+    }
+
+    /**
+     * Fibonacci hashing, the high bits of the product are spread well even for close hash codes.
+     */
+    private int index(int hash) {
+        return (hash * 0x9E3779B9 >>> shift) << 1;
+    }
+
+    private int next(int i) {
+        return (i + 2) & (table.length - 1);
+    }
+}
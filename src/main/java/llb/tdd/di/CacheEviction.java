@@ -0,0 +1,60 @@
+package llb.tdd.di;
+
+/**
+ * @author LiLuBing
+ * @PackageName: llb.tdd.di
+ * @Description: Eviction SPI of cache scoped components, set with ContextConfig.cache before binding. It is told
+ * whenever a binding caches a new instance and may evict the instances of other bindings, expiry by ttl and maxUses
+ * applies regardless. With the default NONE instances are only dropped when they expire.
+ * @ClassName: CacheEviction
+ * @date 2022-11-26 9:05:12
+ * @ProjectName 01-di-container
+ * @Version V1.0
+ */
+public interface CacheEviction {
+    CacheEviction NONE = cached -> {
+    };
+
+    /**
+     * The binding has cached a new instance. Called outside the locks of the cache and never for a plain get(),
+     * possibly from several threads at once.
+     */
+    void cached(Cached cached);
+
+    /**
+     * At most maxPerQualifier instances cached for the bindings of each qualifier, unqualified bindings count as one
+     * qualifier. Once a new instance exceeds that, the least recently used ones are evicted.
+     */
+    static CacheEviction leastRecentlyUsed(int maxPerQualifier) {
+        if (maxPerQualifier <= 0) {
+            throw new IllegalArgumentException("maxPerQualifier must be positive");
+        }
+        return new LeastRecentlyUsedEviction(maxPerQualifier);
+    }
+
+    /**
+     * A cache scoped binding holding an instance.
+     */
+    interface Cached {
+        /**
+         * The component the binding was bound as, the first one for a binding with several qualifiers.
+         */
+        Component component();
+
+        /**
+         * Time of the last get() that returned the cached instance, on the clock of the cache.
+         */
+        long lastUsed();
+
+        /**
+         * Whether a get() would still return the cached instance, false once it expired, was used maxUses times
+         * or was evicted.
+         */
+        boolean holds();
+
+        /**
+         * Drops the cached instance, the next get() creates a new one.
+         */
+        void evict();
+    }
+}
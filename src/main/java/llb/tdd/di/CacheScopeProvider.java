@@ -0,0 +1,196 @@
+package llb.tdd.di;
+
+import java.lang.annotation.Annotation;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * @author LiLuBing
+ * @PackageName: llb.tdd.di
+ * @Description: The current instance is an immutable entry read without locking. An expired entry is replaced
+ * under the lock, a refresh ahead replaces it from the refresher while readers keep the current one, but only if
+ * it is still the entry that was refreshed. Every new instance is reported to the eviction, which may drop it later.
+ * @ClassName: CacheScopeProvider
+ * @date 2022-11-26 8:30:41
+ * @ProjectName 01-di-container
+ * @Version V1.0
+ */
+class CacheScopeProvider<T> implements ComponentProvider<T>, CacheEviction.Cached {
+	private final ComponentProvider<T> provider;
+	private final long ttl;
+	private final long refreshAfter;
+	private final long maxUses;
+	private final Executor refresher;
+	private final LongSupplier clock;
+	private final CacheEviction eviction;
+	private final AtomicBoolean refreshing = new AtomicBoolean();
+	private final AtomicReference<Entry<T>> entry = new AtomicReference<>();
+	private final AtomicLong lastUsed = new AtomicLong();
+	private final Component component;
+
+	CacheScopeProvider(ComponentProvider<T> provider, CacheScoped scope, Component component,
+					   Executor refresher, LongSupplier clock, CacheEviction eviction) {
+		this(provider, component, checked(scope).unit().toNanos(scope.ttl()),
+				scope.refreshAfter() == 0 ? Long.MAX_VALUE : scope.unit().toNanos(scope.refreshAfter()),
+				scope.maxUses(), refresher, clock, eviction);
+	}
+
+	private CacheScopeProvider(ComponentProvider<T> provider, Component component, long ttl, long refreshAfter, long maxUses,
+							   Executor refresher, LongSupplier clock, CacheEviction eviction) {
+		this.provider = provider;
+		this.component = component;
+		this.ttl = ttl;
+		this.refreshAfter = refreshAfter;
+		this.maxUses = maxUses;
+		this.refresher = refresher;
+		this.clock = clock;
+		this.eviction = eviction;
+	}
+
+	private static CacheScoped checked(CacheScoped scope) {
+		if (scope.ttl() <= 0 || scope.refreshAfter() < 0 || scope.maxUses() < 0) {
+			throw new IllegalComponentException();
+		}
+		return scope;
+	}
+
+	@Override
+	public ComponentProvider<T> renew() {
+		return new CacheScopeProvider<>(provider, component, ttl, refreshAfter, maxUses, refresher, clock, eviction);
+	}
+
+	@Override
+	public T get(Context context) {
+		return get(context, provider);
+	}
+
+	@Override
+	public ComponentProvider<T> compile(Function<ComponentRef<?>, ComponentProvider<?>> resolver) {
+		ComponentProvider<T> compiled = provider.compile(resolver);
+		return context -> get(context, compiled);
+	}
+
+	private T get(Context context, ComponentProvider<T> provider) {
+		while (true) {
+			Entry<T> entry = this.entry.get();
+			long now = clock.getAsLong();
+			if (entry != null && now - entry.created < ttl && (maxUses == 0 || entry.uses.incrementAndGet() <= maxUses)) {
+				if (eviction != CacheEviction.NONE) {
+					lastUsed.lazySet(now);
+				}
+				if (now - entry.created >= refreshAfter && refreshing.compareAndSet(false, true)) {
+					refresh(context, provider, entry);
+				}
+				return entry.instance;
+			}
+			Entry<T> created = null;
+			synchronized (this) {
+				if (this.entry.get() == entry) {
+					created = new Entry<>(provider.get(context), clock.getAsLong());
+					created.uses.set(1);
+					lastUsed.set(created.created);
+					this.entry.set(created);
+				}
+			}
+			if (created != null) {
+				eviction.cached(this);
+				return created.instance;
+			}
+		}
+	}
+
+	/**
+	 * A failed refresh keeps the current instance, the next get() past refreshAfter tries again. A refresh that
+	 * finishes after the entry expired, was replaced or was evicted is dropped.
+	 */
+	private void refresh(Context context, ComponentProvider<T> provider, Entry<T> current) {
+		try {
+			refresher.execute(() -> {
+				try {
+					if (entry.compareAndSet(current, new Entry<>(provider.get(context), clock.getAsLong()))) {
+						eviction.cached(this);
+					}
+				} catch (RuntimeException e) {
+					// served until it expires, by then a reader creates it under the lock
+				} finally {
+					refreshing.set(false);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			refreshing.set(false);
+		}
+	}
+
+	@Override
+	public Component component() {
+		return component;
+	}
+
+	@Override
+	public long lastUsed() {
+		return lastUsed.get();
+	}
+
+	@Override
+	public boolean holds() {
+		Entry<T> entry = this.entry.get();
+		return entry != null && clock.getAsLong() - entry.created < ttl && (maxUses == 0 || entry.uses.get() < maxUses);
+	}
+
+	@Override
+	public void evict() {
+		entry.set(null);
+	}
+
+	@Override
+	public List<ComponentRef<?>> getDependencies() {
+		return provider.getDependencies();
+	}
+
+	private static class Entry<T> {
+		private final T instance;
+		private final long created;
+		private final AtomicLong uses = new AtomicLong();
+
+		Entry(T instance, long created) {
+			this.instance = instance;
+			this.created = created;
+		}
+	}
+
+	static class Scope implements ScopeProvider {
+		private final Executor refresher;
+		private final LongSupplier clock;
+		private final CacheEviction eviction;
+
+		Scope(Executor refresher, LongSupplier clock, CacheEviction eviction) {
+			this.refresher = refresher;
+			this.clock = clock;
+			this.eviction = eviction;
+		}
+
+		/**
+		 * The ttl has no default, a cache scope needs its annotation.
+		 */
+		@Override
+		public ComponentProvider<?> create(ComponentProvider<?> provider) {
+			throw new IllegalComponentException();
+		}
+
+		@Override
+		public ComponentProvider<?> create(Annotation scope, ComponentProvider<?> provider) {
+			return create(scope, provider, new Target(null, ContainerMetrics.NONE, null));
+		}
+
+		@Override
+		public ComponentProvider<?> create(Annotation scope, ComponentProvider<?> provider, Target target) {
+			return new CacheScopeProvider<>(provider, (CacheScoped) scope, target.component(), refresher, clock, eviction);
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package llb.tdd.di;
+
+import jakarta.inject.Scope;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * @author LiLuBing
+ * @PackageName: llb.tdd.di
+ * @Description: One instance per binding, so per qualifier, that expires ttl after it was created or after it
+ * was handed out maxUses times. Past refreshAfter a get() still returns the current instance and has a new one
+ * created in the background, so readers only wait if the instance expired before it was refreshed.
+ * The CacheEviction set with ContextConfig.cache may also drop instances, for example to cap them per qualifier.
+ * @ClassName: CacheScoped
+ * @date 2022-11-26 8:14:05
+ * @ProjectName 01-di-container
+ * @Version V1.0
+ */
+@Scope
+@Documented
+@Retention(RUNTIME)
+public @interface CacheScoped {
+    long ttl();
+
+    TimeUnit unit() default TimeUnit.SECONDS;
+
+    /**
+     * Age in unit from which the instance is refreshed ahead of expiry, 0 never refreshes ahead.
+     */
+    long refreshAfter() default 0;
+
+    /**
+     * Number of gets an instance serves, 0 for no limit.
+     */
+    long maxUses() default 0;
+}
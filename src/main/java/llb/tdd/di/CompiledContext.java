@@ -0,0 +1,240 @@
+package llb.tdd.di;
+
+import jakarta.inject.Provider;
+
+import java.lang.annotation.Annotation;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * @author LiLuBing
+ * @PackageName: llb.tdd.di
+ * @Description: Provider lookups and Provider injection share the canonical handle of each binding.
+ * Lazy lookups and injections wrap the same handle, so they are as cheap as a Provider until first used.
+ * A Lease lookup or injection borrows from the binding, so pool scoped instances can be given back.
+ * List, Set and Map lookups or injections collect the bindings of the component type.
+ * Children share the bindings of the root and only hold the slots of their request scoped instances.
+ * The binding table is final and filled in the constructor, bindings never change once created. A later context
+ * of the same config creates its own bindings, sharing only the compiled providers of carried components.
+ * @ClassName: CompiledContext
+ * @date 2022-11-12 9:10:45
+ * @ProjectName 01-di-container
+ * @Version V1.0
+ */
+class CompiledContext implements Context {
+    private final BindingTable bindings;
+    private final Map<Class<?>, Contributions> contributions;
+    private final CompiledContext root;
+    private final int slots;
+    private volatile AtomicReferenceArray<Object> instances;
+
+    CompiledContext(Map<Component, ComponentProvider<?>> components) {
+        this(components, null, Set.of());
+    }
+
+    /**
+     * Carries the bindings of the previous context over, except for the recompiled components. A carried binding
+     * must neither depend on a recompiled one nor be request scoped, its compiled provider then does not depend
+     * on the context it was linked in.
+     */
+    CompiledContext(Map<Component, ComponentProvider<?>> components, CompiledContext previous, Set<Component> recompiled) {
+        Map<Component, Binding<?>> bindings = new HashMap<>();
+        this.root = this;
+        Map<ComponentProvider<?>, Integer> slots = new IdentityHashMap<>();
+        List<Binding<?>> linking = new ArrayList<>();
+        Map<Class<?>, List<Binding<?>>> types = new HashMap<>();
+        components.forEach((component, provider) -> {
+            Binding<?> carried = previous == null || recompiled.contains(component) ? null : previous.bindings.get(component);
+            Binding<?> binding;
+            if (carried != null) {
+                binding = new Binding<>(carried, this);
+            } else {
+                binding = new Binding<>(component, provider,
+                        provider instanceof RequestScopedProvider ? slots.computeIfAbsent(provider, p -> slots.size()) : -1, this);
+                linking.add(binding);
+            }
+            bindings.put(component, binding);
+            types.computeIfAbsent(component.type(), type -> new ArrayList<>()).add(binding);
+        });
+        this.bindings = new BindingTable(bindings);
+        this.contributions = new HashMap<>();
+        types.forEach((type, contributing) -> contributions.put(type, Contributions.of(contributing)));
+        this.slots = slots.size();
+        linking.forEach(binding -> binding.link(this::resolve));
+    }
+
+    private CompiledContext(CompiledContext root) {
+        this.bindings = root.bindings;
+        this.contributions = root.contributions;
+        this.root = root;
+        this.slots = root.slots;
+    }
+
+    @Override
+    public <ComponentType> Optional<ComponentType> get(ComponentRef<ComponentType> ref) {
+        if (ref.isContainer()) {
+            if (ref.isMultibinding()) {
+                return Optional.of((ComponentType) multibinding(ref).get(this));
+            }
+            if (ref.getContainer() == Lease.class) {
+                Binding<?> binding = bindings.get(ref);
+                return binding == null ? Optional.empty() : Optional.of((ComponentType) binding.lease(this));
+            }
+            if (ref.getContainer() == Lazy.class) {
+                return (Optional<ComponentType>) lookup(bindings.get(ref)).map(Lazy::new);
+            }
+            if (ref.getContainer() != Provider.class) {
+                return Optional.empty();
+            }
+            return (Optional<ComponentType>) lookup(bindings.get(ref));
+        }
+        Binding<?> binding = bindings.get(ref);
+        return binding == null ? Optional.empty() : Optional.of((ComponentType) binding.get(this));
+    }
+
+    @Override
+    public <ComponentType> Optional<Provider<ComponentType>> handle(ComponentRef<ComponentType> ref) {
+        if (ref.isContainer()) {
+            return Optional.empty();
+        }
+        return lookup((Binding<ComponentType>) bindings.get(ref));
+    }
+
+    @Override
+    public <ComponentType> Optional<CompletableFuture<ComponentType>> getAsync(ComponentRef<ComponentType> ref, Executor executor) {
+        if (ref.isContainer()) {
+            return get(ref).map(CompletableFuture::completedFuture);
+        }
+        Binding<ComponentType> binding = (Binding<ComponentType>) bindings.get(ref);
+        return binding == null ? Optional.empty() : Optional.of(binding.getAsync(this, executor));
+    }
+
+    @Override
+    public Context child() {
+        return new CompiledContext(root);
+    }
+
+    private <T> Optional<Provider<T>> lookup(Binding<T> binding) {
+        if (binding == null) {
+            return Optional.empty();
+        }
+        return root == this ? binding.lookup() : Optional.of(() -> binding.get(this));
+    }
+
+    /**
+     * Instance of the request scoped binding in this context, the slots are allocated on first use.
+     */
+    <T> T scoped(int slot, ComponentProvider<T> provider) {
+        AtomicReferenceArray<Object> instances = this.instances;
+        if (instances == null) {
+            synchronized (this) {
+                instances = this.instances;
+                if (instances == null) {
+                    this.instances = instances = new AtomicReferenceArray<>(slots);
+                }
+            }
+        }
+        Object instance = instances.get(slot);
+        if (instance == null) {
+            synchronized (this) {
+                instance = instances.get(slot);
+                if (instance == null) {
+                    instance = provider.get(this);
+                    instances.set(slot, instance);
+                }
+            }
+        }
+        return (T) instance;
+    }
+
+    /**
+     * Resolved providers refer to compiled providers only and find handles in the context they are called with,
+     * so a binding carried into later contexts keeps none of the earlier ones reachable.
+     */
+    private ComponentProvider<?> resolve(ComponentRef<?> ref) {
+        Binding<?> binding = bindings.get(ref);
+        if (binding != null && !ref.isContainer()) {
+            return binding.compiled();
+        }
+        if (binding != null && ref.getContainer() == Provider.class) {
+            ComponentProvider<?> compiled = binding.compiled();
+            return context -> handle(ref, compiled, context);
+        }
+        if (binding != null && ref.getContainer() == Lazy.class) {
+            ComponentProvider<?> compiled = binding.compiled();
+            return context -> new Lazy<>(handle(ref, compiled, context));
+        }
+        if (binding != null && ref.getContainer() == Lease.class) {
+            return binding.compiled()::lease;
+        }
+        if (ref.isMultibinding()) {
+            return multibinding(ref);
+        }
+        return context -> context.get(ref).get();
+    }
+
+    private static <T> Provider<T> handle(ComponentRef<?> ref, ComponentProvider<T> compiled, Context context) {
+        return context instanceof CompiledContext root && root.root == root
+                ? ((Binding<T>) root.bindings.get(ref)).handle() : () -> compiled.get(context);
+    }
+
+    /**
+     * A qualified collection only holds the component bound with that qualifier.
+     */
+    private ComponentProvider<?> multibinding(ComponentRef<?> ref) {
+        Component component = ref.component();
+        Contributions contributions = component.qualifiers() == null
+                ? this.contributions.getOrDefault(component.type(), Contributions.NONE)
+                : Contributions.of(Optional.<Binding<?>>ofNullable(bindings.get(component)).stream().toList());
+        if (ref.getContainer() == List.class) {
+            return contributions::list;
+        }
+        return ref.getContainer() == Set.class ? contributions::set : contributions::map;
+    }
+
+    /**
+     * Bindings of a type in binding order, resolved once per context. Elements hold each provider once,
+     * so a component bound with several qualifiers is one element but one entry per qualifier.
+     */
+    private record Contributions(ComponentProvider<?>[] elements, Annotation[] qualifiers, ComponentProvider<?>[] qualified) {
+        static final Contributions NONE = new Contributions(new ComponentProvider<?>[0], new Annotation[0], new ComponentProvider<?>[0]);
+
+        static Contributions of(List<Binding<?>> bindings) {
+            Set<ComponentProvider<?>> providers = Collections.newSetFromMap(new IdentityHashMap<>());
+            List<Binding<?>> qualified = bindings.stream().filter(binding -> binding.component().qualifiers() != null).toList();
+            return new Contributions(bindings.stream().filter(binding -> providers.add(binding.provider())).map(Binding::compiled).toArray(ComponentProvider<?>[]::new),
+                    qualified.stream().map(binding -> binding.component().qualifiers()).toArray(Annotation[]::new),
+                    qualified.stream().map(Binding::compiled).toArray(ComponentProvider<?>[]::new));
+        }
+
+        List<Object> list(Context context) {
+            Object[] instances = new Object[elements.length];
+            for (int i = 0; i < elements.length; i++) {
+                instances[i] = elements[i].get(context);
+            }
+            return Collections.unmodifiableList(Arrays.asList(instances));
+        }
+
+        Set<Object> set(Context context) {
+            Set<Object> instances = new LinkedHashSet<>(capacity(elements.length));
+            for (ComponentProvider<?> element : elements) {
+                instances.add(element.get(context));
+            }
+            return Collections.unmodifiableSet(instances);
+        }
+
+        Map<Annotation, Object> map(Context context) {
+            Map<Annotation, Object> instances = new LinkedHashMap<>(capacity(qualified.length));
+            for (int i = 0; i < qualified.length; i++) {
+                instances.put(qualifiers[i], qualified[i].get(context));
+            }
+            return Collections.unmodifiableMap(instances);
+        }
+
+        private static int capacity(int size) {
+            return (int) (size / 0.75f) + 1;
+        }
+    }
+}
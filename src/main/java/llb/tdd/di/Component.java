@@ -5,11 +5,23 @@ import java.lang.annotation.Annotation;
 /**
  * @author LiLuBing
  * @PackageName: llb.tdd.di
- * @Description:
+ * @Description: Component key, ContextConfig binds components with interned keys and Component.of returns the
+ * interned key of a bound component, so most comparisons are by identity. Other keys still compare by value.
  * @ClassName: Component
  * @date 2022-11-06 上午8:13
  * @ProjectName di-explained
  * @Version V1.0
  */
 public record Component(Class<?> type, Annotation qualifiers) {
+    public static Component of(Class<?> type, Annotation qualifier) {
+        return ComponentKeys.ref(type, qualifier).component();
+    }
+
+    static Component intern(Class<?> type, Annotation qualifier) {
+        return ComponentKeys.intern(type, qualifier).component();
+    }
+
+    ComponentRef<?> ref() {
+        return ComponentKeys.ref(type, qualifiers);
+    }
 }
@@ -0,0 +1,42 @@
+package llb.tdd.di;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+/**
+ * @author LiLuBing
+ * @PackageName: llb.tdd.di
+ * @Description: Reflection free factory generated at compile time for a component,
+ * named after the component's binary name with '_' doubled, '$' replaced by '_' and "_Factory"
+ * appended, so Outer$Nested and Outer_Nested get Outer_Nested_Factory and Outer__Nested_Factory.
+ * The processor lists the factories it generates in META-INF/llb.tdd.di/factories, and
+ * ContextConfig.bind uses a listed factory instead of an InjectionProvider.
+ * @ClassName: ComponentFactory
+ * @date 2022-11-14 8:12:40
+ * @ProjectName 01-di-container
+ * @Version V1.0
+ */
+public interface ComponentFactory<T> {
+    /**
+     * Dependencies of constructor, fields and methods, in injection order.
+     */
+    List<ComponentRef<?>> getDependencies();
+
+    /**
+     * Creates the component with dependencies resolved in the order of getDependencies().
+     */
+    T create(Object[] dependencies);
+
+    /**
+     * Reference for a qualified or parameterized dependency, taken from a holder field the
+     * generated factory declares with the same type and qualifier as the injection point.
+     */
+    static ComponentRef<?> dependency(Class<?> factory, String holder) {
+        try {
+            Field field = factory.getDeclaredField(holder);
+            return ComponentRef.of(field.getGenericType(), InjectionProvider.Injectable.getQualifier(field));
+        } catch (NoSuchFieldException e) {
+            throw new IllegalComponentException();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package llb.tdd.di;
+
+import java.lang.annotation.Annotation;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * @author LiLuBing
+ * @PackageName: llb.tdd.di
+ * @Description: Interns the canonical ref of every bound component, the first equal qualifier bound becomes the
+ * normalized instance. Lookups return the interned ref when there is one and an uninterned ref otherwise, so qualifiers
+ * built at runtime for lookups are not kept. A qualified key is kept on whichever of the type and the qualifier class has the child class loader, so
+ * interning never keeps a child loader reachable from a class of its parent, and keys of unrelated loaders are not interned.
+ * @ClassName: ComponentKeys
+ * @date 2022-11-06 上午8:20
+ * @ProjectName di-explained
+ * @Version V1.0
+ */
+final class ComponentKeys {
+    private static final ClassValue<Keys> keys = new ClassValue<>() {
+        @Override
+        protected Keys computeValue(Class<?> type) {
+            return new Keys(type);
+        }
+    };
+
+    private ComponentKeys() {
+    }
+
+    static ComponentRef<?> ref(Class<?> type, Annotation qualifier) {
+        if (qualifier == null) {
+            return keys.get(type).unqualified;
+        }
+        Class<?> owner = owner(type, qualifier.getClass());
+        Component component = new Component(type, qualifier);
+        ComponentRef<?> interned = owner == null ? null : keys.get(owner).qualified.get(component);
+        return interned != null ? interned : new ComponentRef<>(component);
+    }
+
+    static ComponentRef<?> intern(Class<?> type, Annotation qualifier) {
+        if (qualifier == null) {
+            return keys.get(type).unqualified;
+        }
+        Class<?> owner = owner(type, qualifier.getClass());
+        if (owner == null) {
+            return new ComponentRef<>(new Component(type, qualifier));
+        }
+        return keys.get(owner).qualified.computeIfAbsent(new Component(type, qualifier), ComponentRef::new);
+    }
+
+    private static Class<?> owner(Class<?> type, Class<?> qualifier) {
+        if (isAncestor(qualifier.getClassLoader(), type.getClassLoader())) {
+            return type;
+        }
+        if (isAncestor(type.getClassLoader(), qualifier.getClassLoader())) {
+            return qualifier;
+        }
+        return null;
+    }
+
+    private static boolean isAncestor(ClassLoader ancestor, ClassLoader loader) {
+        if (ancestor == null) {
+            return true;
+        }
+        for (ClassLoader current = loader; current != null; current = current.getParent()) {
+            if (current == ancestor) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class Keys {
+        private final ComponentRef<?> unqualified;
+        private final ConcurrentMap<Component, ComponentRef<?>> qualified = new ConcurrentHashMap<>();
+
+        Keys(Class<?> type) {
+            this.unqualified = new ComponentRef<>(new Component(type, null));
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package llb.tdd.di;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 
 /**
  * @author LiLuBing
@@ -17,4 +20,39 @@ interface ComponentProvider<T> {
 	default List<ComponentRef<?>> getDependencies() {
 		return List.of();
 	}
+
+	/**
+	 * Pre-resolves dependencies through the resolver, so the returned provider no longer looks them up in the Context.
+	 * Providers that cannot be compiled keep resolving through the Context.
+	 */
+	default ComponentProvider<T> compile(Function<ComponentRef<?>, ComponentProvider<?>> resolver) {
+		return this;
+	}
+
+	/**
+	 * Providers that can build a component once its dependencies are ready resolve the dependencies concurrently
+	 * and build it on the executor. All others resolve on the calling thread, which keeps thread bound scopes right.
+	 */
+	default CompletableFuture<T> getAsync(Context context, Executor executor) {
+		try {
+			return CompletableFuture.completedFuture(get(context));
+		} catch (RuntimeException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	/**
+	 * Provider that starts over without the instances cached by this one, used once a dependency has been bound again.
+	 * The previous context keeps this provider and its instances. Providers that cache nothing return themselves.
+	 */
+	default ComponentProvider<T> renew() {
+		return this;
+	}
+
+	/**
+	 * Lease of an instance for the caller to close when done with it, only pooled providers take the instance back.
+	 */
+	default Lease<T> lease(Context context) {
+		return new Lease<>(get(context), null);
+	}
 }
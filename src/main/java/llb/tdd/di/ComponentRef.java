@@ -1,14 +1,22 @@
 package llb.tdd.di;
 
+import jakarta.inject.Provider;
+
 import java.lang.annotation.Annotation;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * @author LiLuBing
  * @PackageName: llb.tdd.di
- * @Description:
+ * @Description: Refs of a plain class are canonical per component, container refs are built per call
+ * but share the canonical component key and carry a precomputed hash. The component of a container is its first
+ * type argument, except for a Map, which must be keyed by qualifier annotations and has its values as component.
  * @ClassName: ComponentRef
  * @date 2022-11-06 上午8:14
  * @ProjectName di-explained
@@ -17,28 +25,48 @@ import java.util.Objects;
 public
 class ComponentRef<ComponentType> {
     public static <ComponentType> ComponentRef<ComponentType> of(Class<ComponentType> component) {
-        return new ComponentRef(component, null);
+        return (ComponentRef<ComponentType>) ComponentKeys.ref(component, null);
     }
 
     public static <ComponentType> ComponentRef<ComponentType> of(Class<ComponentType> component, Annotation qualifier) {
-        return new ComponentRef(component, qualifier);
+        return (ComponentRef<ComponentType>) ComponentKeys.ref(component, qualifier);
     }
 
     public static ComponentRef of(Type type) {
-        return new ComponentRef(type, null);
+        return of(type, null);
     }
 
     public static ComponentRef of(Type type, Annotation qualifier) {
+        if (type instanceof Class<?> component) {
+            return ComponentKeys.ref(component, qualifier);
+        }
         return new ComponentRef(type, qualifier);
     }
 
     private Type container;
     private Component component;
+    private int componentHash;
+    private int hash;
 
     ComponentRef(Type type, Annotation qualifier) {
         init(type, qualifier);
     }
 
+    ComponentRef(Component component) {
+        this(component, null);
+    }
+
+    private ComponentRef(Component component, Type container) {
+        this.container = container;
+        this.component = component;
+        this.componentHash = component.hashCode();
+        this.hash = hash(container, componentHash);
+    }
+
+    static <ComponentType> ComponentRef<Provider<ComponentType>> providerOf(ComponentRef<ComponentType> ref) {
+        return new ComponentRef<>(ref.component(), Provider.class);
+    }
+
     protected ComponentRef() {
         Type type = ((ParameterizedType) getClass().getGenericSuperclass()).getActualTypeArguments()[0];
         init(type, null);
@@ -46,12 +74,29 @@ class ComponentRef<ComponentType> {
 
     private void init(Type type, Annotation qualifier) {
         if (type instanceof ParameterizedType container) {
+            Type[] arguments = container.getActualTypeArguments();
             this.container = container.getRawType();
-            this.component = new Component((Class<ComponentType>) container.getActualTypeArguments()[0], qualifier);
+            if (this.container == Map.class && !isQualifierKey(arguments[0])) {
+                throw new IllegalComponentException();
+            }
+            if (!(arguments[this.container == Map.class ? 1 : 0] instanceof Class<?> component)) {
+                throw new IllegalComponentException();
+            }
+            this.component = Component.of(component, qualifier);
         } else {
-            this.component = new Component((Class<ComponentType>) type, qualifier);
-
+            this.component = Component.of((Class<ComponentType>) type, qualifier);
         }
+        this.componentHash = component.hashCode();
+        this.hash = hash(this.container, componentHash);
+    }
+
+    private static boolean isQualifierKey(Type key) {
+        return key == Annotation.class || key instanceof WildcardType wildcard && wildcard.getLowerBounds().length == 0
+                && wildcard.getUpperBounds()[0] == Annotation.class;
+    }
+
+    private static int hash(Type container, int componentHash) {
+        return 31 * Objects.hashCode(container) + componentHash;
     }
 
     public Type getContainer() {
@@ -62,10 +107,25 @@ class ComponentRef<ComponentType> {
         return container != null;
     }
 
+    /**
+     * List, Set or Map keyed by qualifier annotation, every binding of the component type contributes to it.
+     * Refs of a Map with any other key are rejected when created.
+     */
+    public boolean isMultibinding() {
+        return container == List.class || container == Set.class || container == Map.class;
+    }
+
     public Component component() {
         return component;
     }
 
+    /**
+     * Hash of the component, computed once since hashing a qualifier annotation is not cheap.
+     */
+    int componentHash() {
+        return componentHash;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -75,11 +135,11 @@ class ComponentRef<ComponentType> {
             return false;
         }
         ComponentRef<?> that = (ComponentRef<?>) o;
-        return Objects.equals(container, that.container) && component.equals(that.component);
+        return hash == that.hash && Objects.equals(container, that.container) && component.equals(that.component);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(container, component);
+        return hash;
     }
 }
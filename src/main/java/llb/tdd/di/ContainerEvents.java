@@ -0,0 +1,116 @@
+package llb.tdd.di;
+
+import jdk.jfr.*;
+
+import java.lang.annotation.Annotation;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * @author LiLuBing
+ * @PackageName: llb.tdd.di
+ * @Description: Flight Recorder events of the container, all in the "Dependency Injection" category.
+ * A disabled event costs the isEnabled() check only.
+ * @ClassName: ContainerEvents
+ * @date 2022-11-17 8:40:26
+ * @ProjectName 01-di-container
+ * @Version V1.0
+ */
+final class ContainerEvents {
+    private static final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[1]);
+
+    private ContainerEvents() {
+    }
+
+    /**
+     * What the events tell about a component: implementation type, qualifiers and scope it was bound with.
+     */
+    record Subject(Class<?> type, String qualifier, String scope) {
+        static Subject of(Class<?> type, List<Annotation> qualifiers, List<Annotation> scopes) {
+            return new Subject(type, names(qualifiers), names(scopes));
+        }
+
+        private static String names(List<Annotation> annotations) {
+            return annotations.isEmpty() ? null : annotations.stream().map(Annotation::toString).collect(Collectors.joining(" "));
+        }
+    }
+
+    /**
+     * Nesting depth of the creation about to start on this thread, 0 for a component looked up from the context.
+     */
+    static int enter() {
+        return depth.get()[0]++;
+    }
+
+    static void exit() {
+        depth.get()[0]--;
+    }
+
+    static int depth() {
+        return depth.get()[0];
+    }
+
+    @Name("llb.tdd.di.Create")
+    @Label("Component Creation")
+    @Description("Construction and injection of a component, including the creation of its dependencies")
+    @Category("Dependency Injection")
+    @StackTrace(false)
+    static class Create extends ComponentEvent {
+    }
+
+    @Name("llb.tdd.di.Singleton")
+    @Label("Singleton Creation")
+    @Description("First access of a singleton, while it is created under the lock of the singleton")
+    @Category("Dependency Injection")
+    @StackTrace(false)
+    static class Singleton extends ComponentEvent {
+    }
+
+    @Name("llb.tdd.di.Scan")
+    @Label("Component Scan")
+    @Description("Scan of the injection points of a component, reflective unless cached")
+    @Category("Dependency Injection")
+    @StackTrace(false)
+    static class Scan extends Event {
+        @Label("Type")
+        Class<?> type;
+
+        @Label("Cached")
+        @Description("Members found by an earlier scan in this JVM")
+        boolean cached;
+    }
+
+    @Name("llb.tdd.di.Validation")
+    @Label("Context Validation")
+    @Description("getContext() scanning pending components and checking dependencies of all components")
+    @Category("Dependency Injection")
+    @StackTrace(false)
+    static class Validation extends Event {
+        @Label("Components")
+        int components;
+    }
+
+    abstract static class ComponentEvent extends Event {
+        @Label("Type")
+        Class<?> type;
+
+        @Label("Qualifier")
+        String qualifier;
+
+        @Label("Scope")
+        String scope;
+
+        @Label("Depth")
+        int depth;
+
+        void commit(Subject subject, int depth) {
+            if (subject != null) {
+                this.type = subject.type();
+                this.qualifier = subject.qualifier();
+                this.scope = subject.scope();
+            }
+            this.depth = depth;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package llb.tdd.di;
+
+/**
+ * @author LiLuBing
+ * @PackageName: llb.tdd.di
+ * @Description: Instrumentation SPI the container reports to, set with ContextConfig.metrics before binding.
+ * With the default NONE no component is instrumented at all.
+ * @ClassName: ContainerMetrics
+ * @date 2022-11-16 8:12:05
+ * @ProjectName 01-di-container
+ * @Version V1.0
+ */
+public interface ContainerMetrics {
+    ContainerMetrics NONE = new ContainerMetrics() {
+    };
+
+    /**
+     * A component was created by the container. Self time is the construction and injection of the component itself,
+     * dependency time is spent creating its dependencies within that construction.
+     */
+    default void created(Component component, long selfNanos, long dependencyNanos) {
+    }
+
+    default void singletonHit(Component component) {
+    }
+
+    default void singletonMiss(Component component) {
+    }
+
+    /**
+     * getContext() finished scanning and checking the dependencies of all components.
+     */
+    default void validated(long nanos) {
+    }
+}
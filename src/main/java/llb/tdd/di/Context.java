@@ -1,6 +1,10 @@
 package llb.tdd.di;
 
+import jakarta.inject.Provider;
+
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * @author LiLuBing
@@ -14,4 +18,33 @@ import java.util.Optional;
 public interface Context {
     <ComponentType> Optional<ComponentType> get(ComponentRef<ComponentType> ref);
 
+    /**
+     * Handle pre-bound to the component, obtain it once and reuse it to skip the lookup of get(ComponentRef).
+     * Empty if the component is not bound.
+     */
+    default <ComponentType> Optional<Provider<ComponentType>> handle(ComponentRef<ComponentType> ref) {
+        return get(ComponentRef.providerOf(ref));
+    }
+
+    /**
+     * Child sharing the validated and compiled bindings of this context, it holds its own instances of
+     * request scoped components. Creating one costs a single object, the instance slots are allocated on first use.
+     * Contexts that cannot scope requests throw UnsupportedOperationException.
+     */
+    default Context child() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Resolves the component with independent dependencies built concurrently on the executor.
+     * Empty if the component is not bound. Contexts that cannot build concurrently resolve on the calling thread.
+     */
+    default <ComponentType> Optional<CompletableFuture<ComponentType>> getAsync(ComponentRef<ComponentType> ref, Executor executor) {
+        try {
+            return get(ref).map(CompletableFuture::completedFuture);
+        } catch (RuntimeException e) {
+            return Optional.of(CompletableFuture.failedFuture(e));
+        }
+    }
+
 }
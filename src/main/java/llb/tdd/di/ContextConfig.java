@@ -1,12 +1,17 @@
 package llb.tdd.di;
 
-import jakarta.inject.Provider;
 import jakarta.inject.Qualifier;
 import jakarta.inject.Scope;
 import jakarta.inject.Singleton;
 
+import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -14,23 +19,45 @@ import static java.util.List.of;
 
 public class ContextConfig {
 
-    private Map<Component, ComponentProvider<?>> components = new HashMap<>();
+    private Map<Component, ComponentProvider<?>> components = new LinkedHashMap<>();
     private Map<Class<?>, ScopeProvider> scopes = new HashMap<>();
+    private Map<Component, DeferredProvider<?>> scans = new HashMap<>();
+    private InstantiationEngine engine = InstantiationEngine.METHOD_HANDLE;
+    private Executor eager;
+    private ContainerMetrics metrics = ContainerMetrics.NONE;
+    private MetadataIndex index;
+    private Path indexFile;
+    private final Set<Component> changed = new HashSet<>();
+    private final Set<Component> requestScoped = new HashSet<>();
+    private final Set<Component> scoped = new HashSet<>();
+    private final Set<Component> requestBound = new HashSet<>();
+    private final Map<Class<?>, Set<Component>> types = new HashMap<>();
+    private Map<Object, Set<Component>> dependents;
+    private List<Component> order;
+    private CompiledContext context;
+    private Context frozen;
 
     public ContextConfig() {
-        scope(Singleton.class, SingletonProvider::new);
+        scope(Singleton.class, new SingletonProvider.Scope());
+        scope(RequestScoped.class, RequestScopedProvider::new);
+        scope(ThreadScoped.class, ThreadScopeProvider::new);
+        scope(ExecutionScoped.class, ExecutionScopeProvider::new);
+        scope(PoolScoped.class, new PoolProvider.Scope());
+        scope(ReclaimableScoped.class, new ReferenceScopeProvider.Scope());
+        scope(CacheScoped.class, new CacheScopeProvider.Scope(ForkJoinPool.commonPool(), System::nanoTime, CacheEviction.NONE));
     }
 
     public <Type> void bind(Class<Type> type, Type instance) {
-        components.put(new Component(type, null), (ComponentProvider<Type>) context -> instance);
+        put(Component.intern(type, null), (ComponentProvider<Type>) context -> instance);
     }
 
     public <Type> void bind(Class<Type> type, Type instance, Annotation... qualifiers) {
         if(Arrays.stream(qualifiers).anyMatch(q -> !q.annotationType().isAnnotationPresent(Qualifier.class))) {
             throw new IllegalComponentException();
         }
+        ComponentProvider<Type> provider = context -> instance;
         for (Annotation qualifier : qualifiers) {
-            components.put(new Component(type, qualifier), context -> instance);
+            put(Component.intern(type, qualifier), provider);
         }
     }
 
@@ -46,24 +73,70 @@ public class ContextConfig {
             throw new IllegalComponentException();
         }
 
-        bind(type, annotationGroups.getOrDefault(Qualifier.class, List.of()), createScopeProvider(implementation,
-                annotationGroups.getOrDefault(Scope.class, of())));
+        InstantiationEngine engine = this.engine;
+        ContainerMetrics metrics = this.metrics;
+        MetadataIndex index = this.index;
+        List<Annotation> qualifiers = annotationGroups.getOrDefault(Qualifier.class, List.of());
+        Component measured = componentsOf(type, qualifiers).get(0);
+        List<Annotation> scopes = annotationGroups.getOrDefault(Scope.class, of());
+        ContainerEvents.Subject subject = ContainerEvents.Subject.of(implementation, qualifiers,
+                scopes.isEmpty() ? scopeFrom(implementation).stream().toList() : scopes);
+        DeferredProvider<Implementation> scan = new DeferredProvider<>(() -> {
+            ComponentProvider<Implementation> provider = FactoryProvider.of(implementation, subject)
+                    .orElseGet(() -> scan(implementation, engine, subject, index));
+            return metrics == ContainerMetrics.NONE ? provider : new MeasuredProvider<>(measured, provider, metrics);
+        });
+        ComponentProvider<?> provider = createScopeProvider(implementation, scopes, scan, new ScopeProvider.Target(measured, metrics, subject));
+        bind(type, qualifiers, provider);
+        componentsOf(type, qualifiers).forEach(component -> scans.put(component, scan));
+        if (provider != scan) {
+            scoped.addAll(componentsOf(type, qualifiers));
+        }
+    }
+
+    private static <Type> ComponentProvider<Type> scan(Class<Type> implementation, InstantiationEngine engine,
+                                                        ContainerEvents.Subject subject, MetadataIndex index) {
+        if (index == null) {
+            return new InjectionProvider<>(implementation, engine, subject);
+        }
+        return index.members(implementation).<ComponentProvider<Type>>map(members -> new InjectionProvider<>(members, engine, subject))
+                .orElseGet(() -> {
+                    InjectionProvider<Type> scanned = new InjectionProvider<>(implementation, engine, subject);
+                    index.record(scanned.members());
+                    return scanned;
+                });
     }
 
-    private <Type> ComponentProvider<?> createScopeProvider(Class<Type> implementation, List<Annotation> scopes) {
+    private <Type> ComponentProvider<?> createScopeProvider(Class<Type> implementation, List<Annotation> scopes, ComponentProvider<?> injectionProvider,
+                                                           ScopeProvider.Target target) {
         if(scopes.size() > 1) {
             throw new IllegalComponentException();
         }
-        ComponentProvider<?> injectionProvider = new InjectionProvider<>(implementation);
-        return scopes.stream().findFirst().or(() -> scopeFrom(implementation)).<ComponentProvider<?>>map(s -> getScopeProvider(s, injectionProvider)).orElse(injectionProvider);
+        return scopes.stream().findFirst().or(() -> scopeFrom(implementation)).<ComponentProvider<?>>map(s -> getScopeProvider(s, injectionProvider, target)).orElse(injectionProvider);
     }
 
-    private <Type> void bind(Class<Type> type, List<Annotation> qualifiers, ComponentProvider<?> provider) {
+    <Type> void bind(Class<Type> type, List<Annotation> qualifiers, ComponentProvider<?> provider) {
+        componentsOf(type, qualifiers).forEach(component -> put(component, provider));
+    }
+
+    private List<Component> componentsOf(Class<?> type, List<Annotation> qualifiers) {
         if(qualifiers.isEmpty()) {
-            components.put(new Component(type, null), provider);
+            return List.of(Component.intern(type, null));
         }
-        for (Annotation qualifier : qualifiers) {
-            components.put(new Component(type, qualifier), provider);
+        return qualifiers.stream().map(qualifier -> Component.intern(type, qualifier)).toList();
+    }
+
+    private void put(Component component, ComponentProvider<?> provider) {
+        checkNotFrozen();
+        components.put(component, provider);
+        scans.remove(component);
+        scoped.remove(component);
+        changed.add(component);
+        types.computeIfAbsent(component.type(), type -> new HashSet<>()).add(component);
+        if (provider instanceof RequestScopedProvider) {
+            requestScoped.add(component);
+        } else {
+            requestScoped.remove(component);
         }
     }
 
@@ -80,54 +153,296 @@ public class ContextConfig {
 
     }
 
-    private ComponentProvider<?> getScopeProvider(Annotation scope, ComponentProvider<?> provider) {
+    private ComponentProvider<?> getScopeProvider(Annotation scope, ComponentProvider<?> provider, ScopeProvider.Target target) {
         if(!scopes.containsKey(scope.annotationType())) {
             throw new IllegalComponentException();
         }
-        return scopes.get(scope.annotationType()).create(provider);
+        return scopes.get(scope.annotationType()).create(scope, provider, target);
+    }
+
+    public void engine(InstantiationEngine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Builds all singletons in getContext() before it returns, singletons on the same
+     * topological level of the dependency graph are built concurrently on the executor.
+     */
+    public void eager(Executor executor) {
+        this.eager = executor;
+    }
+
+    /**
+     * Components bound after this call report to the metrics, a component bound with several qualifiers
+     * shares one creation and reports it under its first qualifier.
+     */
+    public void metrics(ContainerMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Loads the metadata index from the file, components bound after this call are created from the index
+     * instead of scanned while their class files are unchanged, and the dependency check is skipped if the
+     * graph was validated before. getContext() writes what it scanned or validated back to the file.
+     */
+    public void index(Path file) {
+        this.index = MetadataIndex.load(file);
+        this.indexFile = file;
+    }
+
+    /**
+     * Cache scoped components bound after this call are refreshed ahead on the executor instead of the common pool.
+     */
+    public void cache(Executor refresher) {
+        cache(refresher, CacheEviction.NONE);
+    }
+
+    /**
+     * Cache scoped components bound after this call are refreshed ahead on the executor and report the instances
+     * they cache to the eviction, for example CacheEviction.leastRecentlyUsed to cap them per qualifier.
+     */
+    public void cache(Executor refresher, CacheEviction eviction) {
+        scope(CacheScoped.class, new CacheScopeProvider.Scope(refresher, System::nanoTime, eviction));
     }
 
     public <ScopeType extends Annotation> void scope(Class<ScopeType> scope, ScopeProvider provider) {
+        checkNotFrozen();
         scopes.put(scope, provider);
     }
 
+    /**
+     * Validates the config one last time and returns its context, which getContext() returns from then on.
+     * Binding components or scopes afterwards throws, so the bindings of the context never change again
+     * and it can be handed to any number of threads without further synchronization.
+     */
+    public Context freeze() {
+        if (frozen == null) {
+            Context context = getContext();
+            components = Collections.unmodifiableMap(components);
+            scopes = Map.copyOf(scopes);
+            changed.clear();
+            requestScoped.clear();
+            scoped.clear();
+            requestBound.clear();
+            types.clear();
+            dependents = null;
+            order = null;
+            this.context = null;
+            frozen = context;
+        }
+        return frozen;
+    }
 
+    private void checkNotFrozen() {
+        if (frozen != null) {
+            throw new IllegalStateException("config is frozen");
+        }
+    }
+
+
+    /**
+     * After the first call only the components bound since the previous call and the components depending
+     * on them are checked again. Scoped components depending on them are renewed, all other scoped instances
+     * and compiled bindings are shared with the previous context.
+     */
     public Context getContext() {
-        components.keySet().forEach(component -> checkDependencies(component, new Stack<>()));
-        return new Context() {
-            @Override
-            public <ComponentType> Optional<ComponentType> get(ComponentRef<ComponentType> ref) {
-                if (ref.isContainer()) {
-                    if (ref.getContainer() != Provider.class) {
-                        return Optional.empty();
+        if (frozen != null) {
+            return frozen;
+        }
+        ContainerEvents.Validation validation = new ContainerEvents.Validation();
+        validation.begin();
+        long start = System.nanoTime();
+        new HashSet<>(scans.values()).parallelStream().forEach(DeferredProvider::provider);
+        scans.clear();
+        boolean incremental = this.context != null;
+        byte[] graph = incremental || index == null ? null : MetadataIndex.fingerprint(components, requestScoped, scoped);
+        Set<Component> affected = incremental ? dependentsOf(changed) : components.keySet();
+        if (!incremental && index != null && eager == null && index.isValidated(graph)) {
+            order = null;
+        } else if (incremental && order != null) {
+            List<Component> checked = checkDependencies(affected);
+            checked.addAll(0, order.stream().filter(component -> !affected.contains(component)).toList());
+            order = checked;
+        } else {
+            order = checkDependencies(components.keySet());
+        }
+        if (dependents == null) {
+            dependents = new HashMap<>();
+        }
+        affected.forEach(component -> components.get(component).getDependencies().forEach(dependency ->
+                dependents.computeIfAbsent(dependency.isMultibinding() ? dependency.component().type() : dependency.component(),
+                        c -> new HashSet<>()).add(component)));
+        metrics.validated(System.nanoTime() - start);
+        validation.components = affected.size();
+        validation.commit();
+        if (incremental) {
+            renew(affected);
+        }
+        CompiledContext context = incremental ? new CompiledContext(components, this.context,
+                dependentsOf(Stream.concat(changed.stream(), requestScoped.stream()).toList()))
+                : new CompiledContext(components);
+        this.context = context;
+        changed.clear();
+        if (eager != null) {
+            instantiateSingletons(context, order);
+        }
+        if (index != null) {
+            if (graph != null) {
+                index.validated(graph);
+            }
+            try {
+                index.writeIfChanged(indexFile);
+            } catch (IOException e) {
+                // the index only speeds up the next start, the context is complete without it
+            }
+        }
+        return context;
+    }
+
+    /**
+     * Components that depend on any of the components, directly or through a container, including themselves.
+     * Multibindings depend on the component type, so they are found for any component of that type.
+     */
+    private Set<Component> dependentsOf(Collection<Component> components) {
+        Set<Component> found = new HashSet<>(components);
+        Deque<Component> pending = new ArrayDeque<>(components);
+        while (!pending.isEmpty()) {
+            Component component = pending.pop();
+            for (Object dependency : List.of(component, component.type())) {
+                for (Component dependent : dependents.getOrDefault(dependency, Set.of())) {
+                    if (found.add(dependent)) {
+                        pending.push(dependent);
                     }
-                    return (Optional<ComponentType>) Optional.ofNullable(getProvider(ref))
-                            .map(provider -> (Provider<Object>) () -> provider.get(this));
                 }
-                return Optional.ofNullable(getProvider(ref)).map(provider -> (ComponentType) provider.get(this));
             }
+        }
+        return found;
+    }
 
-        };
+    /**
+     * Scoped components built with a dependency that has been bound again start over, a component bound
+     * with several qualifiers is renewed once. The dependency graph is recorded even if the index skipped the
+     * check, so this also covers the first rebinding after a warm start.
+     */
+    private void renew(Set<Component> affected) {
+        Map<ComponentProvider<?>, ComponentProvider<?>> renewed = new IdentityHashMap<>();
+        for (Component component : affected) {
+            if (!changed.contains(component)) {
+                components.put(component, renewed.computeIfAbsent(components.get(component), ComponentProvider::renew));
+            }
+        }
     }
 
-    private <ComponentType> ComponentProvider<?> getProvider(ComponentRef<ComponentType> ref) {
-        return components.get(ref.component());
+    private void instantiateSingletons(Context context, List<Component> order) {
+        Map<Component, Integer> levels = new HashMap<>();
+        SortedMap<Integer, List<Component>> singletons = new TreeMap<>();
+        for (Component component : order) {
+            int level = components.get(component).getDependencies().stream().filter(d -> !d.isContainer())
+                    .mapToInt(d -> levels.get(d.component()) + 1).max().orElse(0);
+            levels.put(component, level);
+            if (components.get(component) instanceof SingletonProvider) {
+                singletons.computeIfAbsent(level, l -> new ArrayList<>()).add(component);
+            }
+        }
+        for (List<Component> level : singletons.values()) {
+            try {
+                CompletableFuture.allOf(level.stream().map(component -> CompletableFuture.runAsync(
+                        () -> context.get(ComponentRef.of(component.type(), component.qualifiers())), eager))
+                        .toArray(CompletableFuture[]::new)).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
     }
 
-    private void checkDependencies(Component component, Stack<Component> visiting) {
-        for (ComponentRef dependency : components.get(component).getDependencies()) {
-            if (!components.containsKey(dependency.component())) {
-                throw new DependencyNotFoundException(component, dependency.component());
+    /**
+     * Single iterative depth first walk over the components to check, every component is finished once.
+     * Components not to check were checked before and only depend on checked components.
+     * A dependency still on the walking path is a cycle, dependencies through a container
+     * (Provider, Lazy) are only checked for existence and break the cycle. A Lease borrows its instance
+     * on injection, so it is walked like a direct dependency. So are the components contributing to a List,
+     * Set or Map, which may have none.
+     * Returns components in finishing order, dependencies come before their dependents.
+     */
+    private List<Component> checkDependencies(Set<Component> check) {
+        requestBound.removeAll(check);
+        List<Component> order = new ArrayList<>();
+        Map<Component, Boolean> finished = new HashMap<>();
+        List<Component> path = new ArrayList<>();
+        List<Iterator<ComponentRef<?>>> pending = new ArrayList<>();
+        for (Component root : check) {
+            if (finished.containsKey(root)) {
+                continue;
             }
-            if (!dependency.isContainer()) {
-                if (visiting.contains(dependency.component())) {
-                    throw new CyclicDependenciesFoundException(visiting);
+            visit(root, finished, path, pending);
+            while (!path.isEmpty()) {
+                Component component = path.get(path.size() - 1);
+                Iterator<ComponentRef<?>> dependencies = pending.get(pending.size() - 1);
+                if (!dependencies.hasNext()) {
+                    checkScope(component);
+                    finished.put(component, true);
+                    order.add(component);
+                    path.remove(path.size() - 1);
+                    pending.remove(pending.size() - 1);
+                    continue;
+                }
+                ComponentRef<?> dependency = dependencies.next();
+                if (!components.containsKey(dependency.component())) {
+                    throw new DependencyNotFoundException(component, dependency.component());
+                }
+                if (dependency.isContainer() && dependency.getContainer() != Lease.class || !check.contains(dependency.component())) {
+                    continue;
+                }
+                Boolean state = finished.get(dependency.component());
+                if (state == null) {
+                    visit(dependency.component(), finished, path, pending);
+                } else if (!state) {
+                    throw new CyclicDependenciesFoundException(path.subList(path.indexOf(dependency.component()), path.size()));
                 }
-                visiting.push(dependency.component());
-                checkDependencies(dependency.component(), visiting);
-                visiting.pop();
             }
         }
+        return order;
+    }
+
+    /**
+     * A component is bound to the request if it is request scoped, or is unscoped and gets an instance bound to
+     * the request injected directly. Any other scope would keep that instance beyond its request, only a Provider
+     * or Lazy may reach it. Called once all dependencies of the component are finished.
+     */
+    private void checkScope(Component component) {
+        if (requestScoped.contains(component)) {
+            requestBound.add(component);
+            return;
+        }
+        Optional<Component> bound = components.get(component).getDependencies().stream().flatMap(this::contributing)
+                .filter(dependency -> !dependency.isContainer() || dependency.getContainer() == Lease.class)
+                .map(ComponentRef::component).filter(requestBound::contains).findFirst();
+        if (bound.isEmpty()) {
+            return;
+        }
+        if (scoped.contains(component)) {
+            throw new ScopeWideningException(component, bound.get());
+        }
+        requestBound.add(component);
+    }
+
+    private void visit(Component component, Map<Component, Boolean> finished, List<Component> path, List<Iterator<ComponentRef<?>>> pending) {
+        finished.put(component, false);
+        path.add(component);
+        pending.add(components.get(component).getDependencies().stream().flatMap(this::contributing).iterator());
+    }
+
+    private Stream<ComponentRef<?>> contributing(ComponentRef<?> dependency) {
+        if (!dependency.isMultibinding()) {
+            return Stream.of(dependency);
+        }
+        Component component = dependency.component();
+        Set<Component> contributing = component.qualifiers() == null ? types.getOrDefault(component.type(), Set.of())
+                : components.containsKey(component) ? Set.of(component) : Set.of();
+        return contributing.stream().map(Component::ref);
     }
 
 }
\ No newline at end of file
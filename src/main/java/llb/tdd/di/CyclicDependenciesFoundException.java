@@ -3,6 +3,7 @@ package llb.tdd.di;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * @author LiLuBing
@@ -15,12 +16,22 @@ import java.util.Set;
  */
 public class CyclicDependenciesFoundException extends RuntimeException {
     private Set<Component> components = new HashSet<>();
+    private List<Component> path;
 
 	public CyclicDependenciesFoundException(List<Component> visiting) {
+		super(visiting.stream().map(Component::toString).collect(Collectors.joining(" -> ", "", " -> " + visiting.get(0))));
 		components.addAll(visiting);
+		path = List.copyOf(visiting);
 	}
 
     public Class<?>[] getComponents() {
 		return components.stream().map(c -> c.type()).toArray(Class<?>[]::new);
 	}
+
+	/**
+	 * Components on the cycle in dependency order, the last one depends on the first one.
+	 */
+	public List<Component> getPath() {
+		return path;
+	}
 }
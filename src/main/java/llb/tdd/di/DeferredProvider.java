@@ -0,0 +1,52 @@
+package llb.tdd.di;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * @author LiLuBing
+ * @PackageName: llb.tdd.di
+ * @Description: Records the intent of a binding, the component is only scanned on first use
+ * or when getContext() scans all pending bindings in parallel.
+ * @ClassName: DeferredProvider
+ * @date 2022-11-15 8:21:40
+ * @ProjectName 01-di-container
+ * @Version V1.0
+ */
+class DeferredProvider<T> implements ComponentProvider<T> {
+	private final Supplier<ComponentProvider<T>> scanner;
+	private volatile ComponentProvider<T> provider;
+
+	DeferredProvider(Supplier<ComponentProvider<T>> scanner) {
+		this.scanner = scanner;
+	}
+
+	ComponentProvider<T> provider() {
+		ComponentProvider<T> scanned = provider;
+		if (scanned == null) {
+			synchronized (this) {
+				scanned = provider;
+				if (scanned == null) {
+					provider = scanned = scanner.get();
+				}
+			}
+		}
+		return scanned;
+	}
+
+	@Override
+	public T get(Context context) {
+		return provider().get(context);
+	}
+
+	@Override
+	public ComponentProvider<T> compile(Function<ComponentRef<?>, ComponentProvider<?>> resolver) {
+		return provider().compile(resolver);
+	}
+
+	@Override
+	public List<ComponentRef<?>> getDependencies() {
+		return provider().getDependencies();
+	}
+}
@@ -0,0 +1,67 @@
+package llb.tdd.di;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * @author LiLuBing
+ * @PackageName: llb.tdd.di
+ * @Description: Bounded execution holding the instances of @ExecutionScoped components, in the manner of
+ * ScopedValue.where(...).run(...): instances are visible to the thread for the extent of run or get only,
+ * a nested execution starts with no instances and the outer one is back when it returns. All components
+ * share one ThreadLocal that is cleared when the outermost execution returns, nothing stays on a pooled thread.
+ * @ClassName: ExecutionScope
+ * @date 2022-11-20 8:26:15
+ * @ProjectName 01-di-container
+ * @Version V1.0
+ */
+public final class ExecutionScope {
+    private static final ThreadLocal<ExecutionScope> current = new ThreadLocal<>();
+
+    private Map<ComponentProvider<?>, Object> instances;
+
+    private ExecutionScope() {
+    }
+
+    public static void run(Runnable execution) {
+        get(() -> {
+            execution.run();
+            return null;
+        });
+    }
+
+    public static <T> T get(Supplier<T> execution) {
+        ExecutionScope outer = current.get();
+        current.set(new ExecutionScope());
+        try {
+            return execution.get();
+        } finally {
+            if (outer == null) {
+                current.remove();
+            } else {
+                current.set(outer);
+            }
+        }
+    }
+
+    static ExecutionScope current() {
+        ExecutionScope scope = current.get();
+        if (scope == null) {
+            throw new IllegalStateException("execution scoped component used outside ExecutionScope.run");
+        }
+        return scope;
+    }
+
+    <T> T instance(ComponentProvider<T> scoped, ComponentProvider<T> provider, Context context) {
+        if (instances == null) {
+            instances = new IdentityHashMap<>();
+        }
+        T instance = (T) instances.get(scoped);
+        if (instance == null) {
+            instance = provider.get(context);
+            instances.put(scoped, instance);
+        }
+        return instance;
+    }
+}
@@ -0,0 +1,42 @@
+package llb.tdd.di;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * @author LiLuBing
+ * @PackageName: llb.tdd.di
+ * @Description:
+ * @ClassName: ExecutionScopeProvider
+ * @date 2022-11-20 8:38:44
+ * @ProjectName 01-di-container
+ * @Version V1.0
+ */
+class ExecutionScopeProvider<T> implements ComponentProvider<T> {
+	private final ComponentProvider<T> provider;
+
+	ExecutionScopeProvider(ComponentProvider<T> provider) {
+		this.provider = provider;
+	}
+
+	@Override
+	public T get(Context context) {
+		return ExecutionScope.current().instance(this, provider, context);
+	}
+
+	@Override
+	public ComponentProvider<T> renew() {
+		return new ExecutionScopeProvider<>(provider);
+	}
+
+	@Override
+	public ComponentProvider<T> compile(Function<ComponentRef<?>, ComponentProvider<?>> resolver) {
+		ComponentProvider<T> compiled = provider.compile(resolver);
+		return context -> ExecutionScope.current().instance(this, compiled, context);
+	}
+
+	@Override
+	public List<ComponentRef<?>> getDependencies() {
+		return provider.getDependencies();
+	}
+}
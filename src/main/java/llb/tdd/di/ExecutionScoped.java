@@ -0,0 +1,24 @@
+package llb.tdd.di;
+
+import jakarta.inject.Scope;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * @author LiLuBing
+ * @PackageName: llb.tdd.di
+ * @Description: One instance per execution of ExecutionScope.run or ExecutionScope.get, looking the
+ * component up outside an execution fails.
+ * @ClassName: ExecutionScoped
+ * @date 2022-11-20 8:12:27
+ * @ProjectName 01-di-container
+ * @Version V1.0
+ */
+@Scope
+@Documented
+@Retention(RUNTIME)
+public @interface ExecutionScoped {
+}
@@ -0,0 +1,130 @@
+package llb.tdd.di;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * @author LiLuBing
+ * @PackageName: llb.tdd.di
+ * @Description:
+ * @ClassName: FactoryProvider
+ * @date 2022-11-14 8:30:05
+ * @ProjectName 01-di-container
+ * @Version V1.0
+ */
+class FactoryProvider<T> implements ComponentProvider<T> {
+	static final String FACTORIES = "META-INF/llb.tdd.di/factories";
+
+	/**
+	 * Factory names listed by the processor, read once per class loader. Only names are kept, so a
+	 * class loader that is no longer used can still be collected.
+	 */
+	private static final Map<ClassLoader, Map<String, String>> indexes = Collections.synchronizedMap(new WeakHashMap<>());
+
+	private final ComponentFactory<T> factory;
+	private final List<ComponentRef<?>> dependencies;
+	private final ComponentProvider<?>[] resolved;
+	private final ContainerEvents.Subject subject;
+
+	FactoryProvider(ComponentFactory<T> factory, ContainerEvents.Subject subject) {
+		this(factory, factory.getDependencies(), null, subject);
+	}
+
+	private FactoryProvider(ComponentFactory<T> factory, List<ComponentRef<?>> dependencies, ComponentProvider<?>[] resolved,
+							ContainerEvents.Subject subject) {
+		this.factory = factory;
+		this.dependencies = dependencies;
+		this.resolved = resolved;
+		this.subject = subject;
+	}
+
+	static <T> Optional<ComponentProvider<T>> of(Class<T> implementation, ContainerEvents.Subject subject) {
+		ClassLoader loader = implementation.getClassLoader();
+		String name = loader == null ? null : indexes.computeIfAbsent(loader, FactoryProvider::index).get(implementation.getName());
+		if (name == null) {
+			return Optional.empty();
+		}
+		try {
+			Class<?> factory = Class.forName(name, true, loader);
+			if (!ComponentFactory.class.isAssignableFrom(factory)) {
+				return Optional.empty();
+			}
+			return Optional.of(new FactoryProvider<>((ComponentFactory<T>) factory.getConstructor().newInstance(), subject));
+		} catch (ClassNotFoundException | LinkageError e) {
+			return Optional.empty();
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalComponentException();
+		}
+	}
+
+	private static Map<String, String> index(ClassLoader loader) {
+		Map<String, String> factories = new HashMap<>();
+		try {
+			for (URL resource : Collections.list(loader.getResources(FACTORIES))) {
+				try (InputStream input = resource.openStream()) {
+					Properties listed = new Properties();
+					listed.load(input);
+					listed.forEach((component, factory) -> factories.putIfAbsent((String) component, (String) factory));
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return factories;
+	}
+
+	@Override
+	public T get(Context context) {
+		ContainerEvents.Create event = new ContainerEvents.Create();
+		if (!event.isEnabled()) {
+			return create(context);
+		}
+		event.begin();
+		int depth = ContainerEvents.enter();
+		try {
+			return create(context);
+		} finally {
+			ContainerEvents.exit();
+			event.commit(subject, depth);
+		}
+	}
+
+	private T create(Context context) {
+		Object[] instances = new Object[dependencies.size()];
+		for (int i = 0; i < instances.length; i++) {
+			instances[i] = resolved == null ? context.get(dependencies.get(i)).get() : resolved[i].get(context);
+		}
+		return factory.create(instances);
+	}
+
+	@Override
+	public CompletableFuture<T> getAsync(Context context, Executor executor) {
+		if (resolved == null) {
+			return ComponentProvider.super.getAsync(context, executor);
+		}
+		CompletableFuture<Object[]> dependencies = InjectionProvider.Injectable.getAsync(resolved, context, executor);
+		return dependencies.thenApplyAsync(factory::create, executor);
+	}
+
+	@Override
+	public ComponentProvider<T> compile(Function<ComponentRef<?>, ComponentProvider<?>> resolver) {
+		return new FactoryProvider<>(factory, dependencies, dependencies.stream().map(resolver).toArray(ComponentProvider<?>[]::new), subject);
+	}
+
+	@Override
+	public List<ComponentRef<?>> getDependencies() {
+		return dependencies;
+	}
+}
@@ -0,0 +1,160 @@
+package llb.tdd.di;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author LiLuBing
+ * @PackageName: llb.tdd.di
+ * @Description: Keeps the metrics in memory, query them per component or dump all of them.
+ * @ClassName: InMemoryMetrics
+ * @date 2022-11-16 8:52:19
+ * @ProjectName 01-di-container
+ * @Version V1.0
+ */
+public class InMemoryMetrics implements ContainerMetrics {
+    private final Map<Component, Stats> components = new ConcurrentHashMap<>();
+    private final Histogram validation = new Histogram();
+
+    @Override
+    public void created(Component component, long selfNanos, long dependencyNanos) {
+        Stats stats = stats(component);
+        stats.created.increment();
+        stats.self.record(selfNanos);
+        stats.dependencies.record(dependencyNanos);
+    }
+
+    @Override
+    public void singletonHit(Component component) {
+        stats(component).singletonHits.increment();
+    }
+
+    @Override
+    public void singletonMiss(Component component) {
+        stats(component).singletonMisses.increment();
+    }
+
+    @Override
+    public void validated(long nanos) {
+        validation.record(nanos);
+    }
+
+    public Stats stats(Component component) {
+        return components.computeIfAbsent(component, c -> new Stats());
+    }
+
+    public Map<Component, Stats> components() {
+        return Map.copyOf(components);
+    }
+
+    public Histogram validation() {
+        return validation;
+    }
+
+    /**
+     * One line per component, components with the most self time first.
+     */
+    public String dump() {
+        StringBuilder dump = new StringBuilder();
+        dump.append("validation ").append(validation).append('\n');
+        components.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<Component, Stats> e) -> e.getValue().self.totalNanos()).reversed())
+                .forEach(e -> dump.append(e.getKey()).append(' ').append(e.getValue()).append('\n'));
+        return dump.toString();
+    }
+
+    public static class Stats {
+        private final LongAdder created = new LongAdder();
+        private final LongAdder singletonHits = new LongAdder();
+        private final LongAdder singletonMisses = new LongAdder();
+        private final Histogram self = new Histogram();
+        private final Histogram dependencies = new Histogram();
+
+        public long created() {
+            return created.sum();
+        }
+
+        public long singletonHits() {
+            return singletonHits.sum();
+        }
+
+        public long singletonMisses() {
+            return singletonMisses.sum();
+        }
+
+        public Histogram selfTime() {
+            return self;
+        }
+
+        public Histogram dependencyTime() {
+            return dependencies;
+        }
+
+        @Override
+        public String toString() {
+            return "created=" + created() + " self(" + self + ") dependencies(" + dependencies + ")"
+                    + " singleton(hit=" + singletonHits() + " miss=" + singletonMisses() + ")";
+        }
+    }
+
+    /**
+     * Power of two buckets over nanoseconds, bucket i counts durations in [2^(i-1), 2^i).
+     */
+    public static class Histogram {
+        private final AtomicLongArray buckets = new AtomicLongArray(64);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        void record(long nanos) {
+            long value = Math.max(nanos, 0);
+            buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(value));
+            count.increment();
+            total.add(value);
+            max.accumulate(value);
+        }
+
+        public long count() {
+            return count.sum();
+        }
+
+        public long totalNanos() {
+            return total.sum();
+        }
+
+        public long maxNanos() {
+            return max.get();
+        }
+
+        /**
+         * Upper bound of the bucket holding the percentile, exact to a factor of two.
+         */
+        public long percentileNanos(double percentile) {
+            long rank = (long) Math.ceil(count() * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= rank && seen > 0) {
+                    return Math.min(i == 0 ? 0 : -1L >>> (64 - i), maxNanos());
+                }
+            }
+            return 0;
+        }
+
+        @Override
+        public String toString() {
+            long count = count();
+            return "count=" + count + " avg=" + micros(count == 0 ? 0 : totalNanos() / count) + " p50<=" + micros(percentileNanos(50))
+                    + " p99<=" + micros(percentileNanos(99)) + " max=" + micros(maxNanos());
+        }
+
+        private static String micros(long nanos) {
+            return TimeUnit.NANOSECONDS.toMicros(nanos) + "us";
+        }
+    }
+}
@@ -2,11 +2,19 @@ package llb.tdd.di;
 
 import jakarta.inject.Inject;
 import jakarta.inject.Qualifier;
+import llb.tdd.di.InstantiationEngine.Injector;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static java.util.Arrays.stream;
@@ -26,57 +34,175 @@ class InjectionProvider<T> implements ComponentProvider<T> {
     private Injectable<Constructor<T>> injectConstructor;
     private List<Injectable<Method>> injectMethods;
     private List<Injectable<Field>> injectFields;
+    private ContainerEvents.Subject subject;
+    private Members<T> members;
 
     public InjectionProvider(Class<T> component) {
-        if (Modifier.isAbstract(component.getModifiers())) {
-            throw new IllegalComponentException();
-        }
+        this(component, InstantiationEngine.METHOD_HANDLE);
+    }
 
-        this.injectConstructor = getInjectConstructor(component);
-        this.injectMethods = getInjectMethods(component);
-        this.injectFields = getInjectFields(component);
+    public InjectionProvider(Class<T> component, InstantiationEngine engine) {
+        this(component, engine, ContainerEvents.Subject.of(component, List.of(), List.of()));
+    }
 
-        if (injectFields.stream().map(Injectable::element).anyMatch(f -> Modifier.isFinal(f.getModifiers()))) {
-            throw new IllegalComponentException();
-        }
-        if (injectMethods.stream().map(Injectable::element).anyMatch(m -> m.getTypeParameters().length != 0)) {
-            throw new IllegalComponentException();
-        }
+    InjectionProvider(Class<T> component, InstantiationEngine engine, ContainerEvents.Subject subject) {
+        this(scan(component), engine, subject);
+    }
+
+    /**
+     * Builds the provider from members found by an earlier scan, without looking at the component again.
+     */
+    InjectionProvider(Members<T> members, InstantiationEngine engine, ContainerEvents.Subject subject) {
+        this.members = members;
+        this.subject = subject;
+        this.injectConstructor = Injectable.of(members.constructor(), engine.constructor(members.constructor()));
+        this.injectMethods = members.methods().stream().map(m -> Injectable.of(m, engine.method(m))).toList();
+        this.injectFields = members.fields().stream().map(f -> Injectable.of(f, engine.field(f))).toList();
+    }
+
+    private InjectionProvider(Injectable<Constructor<T>> injectConstructor, List<Injectable<Method>> injectMethods, List<Injectable<Field>> injectFields,
+                              ContainerEvents.Subject subject) {
+        this.injectConstructor = injectConstructor;
+        this.injectMethods = injectMethods;
+        this.injectFields = injectFields;
+        this.subject = subject;
+    }
+
+    Members<T> members() {
+        return members;
     }
 
     @Override
     public T get(Context context) {
+        ContainerEvents.Create event = new ContainerEvents.Create();
+        if (!event.isEnabled()) {
+            return create(context);
+        }
+        event.begin();
+        int depth = ContainerEvents.enter();
+        try {
+            return create(context);
+        } finally {
+            ContainerEvents.exit();
+            event.commit(subject, depth);
+        }
+    }
+
+    private T create(Context context) {
         try {
-            T instance = injectConstructor.element.newInstance(injectConstructor.toDependencies(context));
+            T instance = (T) injectConstructor.inject(null, context);
             for (Injectable<Field> field : injectFields) {
-                field.element.set(instance, field.toDependencies(context)[0]);
+                field.inject(instance, context);
             }
             for (Injectable<Method> method : injectMethods) {
-                method.element.invoke(instance, method.toDependencies(context));
+                method.inject(instance, context);
             }
             return instance;
-        } catch (InvocationTargetException | InstantiationException | IllegalAccessException e) {
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Dependencies of all injection points are resolved at once, the component is built on the executor
+     * after the last of them is ready.
+     */
+    @Override
+    public CompletableFuture<T> getAsync(Context context, Executor executor) {
+        if (injectConstructor.resolved() == null) {
+            return ComponentProvider.super.getAsync(context, executor);
+        }
+        CompletableFuture<Object[]> constructor = injectConstructor.getAsync(context, executor);
+        List<CompletableFuture<Object[]>> fields = injectFields.stream().map(f -> f.getAsync(context, executor)).toList();
+        List<CompletableFuture<Object[]>> methods = injectMethods.stream().map(m -> m.getAsync(context, executor)).toList();
+        return CompletableFuture.allOf(concat(concat(Stream.of(constructor), fields.stream()), methods.stream()).toArray(CompletableFuture[]::new))
+                .thenApplyAsync(ready -> inject(constructor.join(), fields, methods), executor);
+    }
+
+    private T inject(Object[] constructor, List<CompletableFuture<Object[]>> fields, List<CompletableFuture<Object[]>> methods) {
+        try {
+            T instance = (T) injectConstructor.injector().inject(null, constructor);
+            for (int i = 0; i < injectFields.size(); i++) {
+                injectFields.get(i).injector().inject(instance, fields.get(i).join());
+            }
+            for (int i = 0; i < injectMethods.size(); i++) {
+                injectMethods.get(i).injector().inject(instance, methods.get(i).join());
+            }
+            return instance;
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public ComponentProvider<T> compile(Function<ComponentRef<?>, ComponentProvider<?>> resolver) {
+        return new InjectionProvider<>(injectConstructor.compile(resolver),
+                injectMethods.stream().map(m -> m.compile(resolver)).toList(),
+                injectFields.stream().map(f -> f.compile(resolver)).toList(), subject);
+    }
+
     @Override
     public List<ComponentRef<?>> getDependencies() {
         return concat(concat(Stream.of(injectConstructor), injectFields.stream()), injectMethods.stream())
                 .flatMap(i -> stream(i.required())).toList();
     }
 
-    record Injectable<Element extends AccessibleObject>(Element element, ComponentRef<?>[] required) {
-        static  <Element extends Executable> Injectable<Element> of(Element constructor) {
-            return new Injectable<>(constructor, stream(constructor.getParameters()).map(Injectable::toComponentRef).toArray(ComponentRef<?>[]::new));
+    /**
+     * Injection points of a component, in injection order.
+     */
+    record Members<T>(Class<T> component, Constructor<T> constructor, List<Method> methods, List<Field> fields) {
+    }
+
+    record Injectable<Element extends AccessibleObject>(Element element, ComponentRef<?>[] required, Injector injector, ComponentProvider<?>[] resolved) {
+        static  <Element extends Executable> Injectable<Element> of(Element constructor, Injector injector) {
+            return new Injectable<>(constructor, required(constructor,
+                    () -> stream(constructor.getParameters()).map(Injectable::toComponentRef).toArray(ComponentRef<?>[]::new)), injector, null);
+        }
+
+        static Injectable<Field> of(Field field, Injector injector) {
+            return new Injectable<>(field, required(field, () -> new ComponentRef<?>[] {toComponentRef(field)}), injector, null);
+        }
+
+        /**
+         * Refs of the member with their qualifiers, found once per member and shared, never modify the array.
+         */
+        private static ComponentRef<?>[] required(Member member, Supplier<ComponentRef<?>[]> refs) {
+            return Declared.of(member.getDeclaringClass()).required().computeIfAbsent((AccessibleObject) member, m -> refs.get());
+        }
+
+        Injectable<Element> compile(Function<ComponentRef<?>, ComponentProvider<?>> resolver) {
+            return new Injectable<>(element, required, injector, stream(required).map(resolver).toArray(ComponentProvider<?>[]::new));
         }
 
-        static Injectable<Field> of(Field field) {
-            return new Injectable<>(field, new ComponentRef<?>[] {toComponentRef(field)});
+        Object inject(Object instance, Context context) throws Throwable {
+            return injector.inject(instance, toDependencies(context));
+        }
+
+        CompletableFuture<Object[]> getAsync(Context context, Executor executor) {
+            return getAsync(resolved, context, executor);
+        }
+
+        static CompletableFuture<Object[]> getAsync(ComponentProvider<?>[] resolved, Context context, Executor executor) {
+            CompletableFuture<?>[] dependencies = new CompletableFuture<?>[resolved.length];
+            for (int i = 0; i < resolved.length; i++) {
+                dependencies[i] = resolved[i].getAsync(context, executor);
+            }
+            return CompletableFuture.allOf(dependencies).thenApply(ready -> stream(dependencies).map(CompletableFuture::join).toArray());
         }
 
         Object[] toDependencies(Context context) {
-            return stream(required).map(context::get).map(Optional::get).toArray();
+            if (resolved == null) {
+                return stream(required).map(context::get).map(Optional::get).toArray();
+            }
+            Object[] dependencies = new Object[resolved.length];
+            for (int i = 0; i < resolved.length; i++) {
+                dependencies[i] = resolved[i].get(context);
+            }
+            return dependencies;
         }
 
         private static ComponentRef toComponentRef(Field field) {
@@ -87,7 +213,7 @@ class InjectionProvider<T> implements ComponentProvider<T> {
             return ComponentRef.of(parameter.getParameterizedType(), getQualifier(parameter));
         }
 
-        private static Annotation getQualifier(AnnotatedElement element) {
+        static Annotation getQualifier(AnnotatedElement element) {
             List<Annotation> qualifiers = stream(element.getAnnotations())
                     .filter(a -> a.annotationType().isAnnotationPresent(Qualifier.class)).toList();
             if(qualifiers.size() > 1) {
@@ -97,25 +223,110 @@ class InjectionProvider<T> implements ComponentProvider<T> {
         }
     }
 
-    private static <T> Injectable<Constructor<T>> getInjectConstructor(Class<T> component) {
+    /**
+     * Members of every component scanned in this JVM, shared by all configs.
+     */
+    private static final ClassValue<AtomicReference<Members<?>>> SCANNED = new ClassValue<>() {
+        @Override
+        protected AtomicReference<Members<?>> computeValue(Class<?> component) {
+            return new AtomicReference<>();
+        }
+    };
+
+    /**
+     * What one class declares, shared by every component extending it and by all configs in the JVM.
+     */
+    private record Declared(List<Field> fields, List<Method> methods, List<Signature> signatures, Set<Signature> plainMethods,
+                            Map<AccessibleObject, ComponentRef<?>[]> required) {
+        private static final ClassValue<Declared> DECLARED = new ClassValue<>() {
+            @Override
+            protected Declared computeValue(Class<?> type) {
+                Method[] declared = type.getDeclaredMethods();
+                List<Method> methods = injectable(declared).toList();
+                return new Declared(injectable(type.getDeclaredFields()).toList(), methods, methods.stream().map(Signature::of).toList(),
+                        stream(declared).filter(m -> !m.isAnnotationPresent(Inject.class)).map(Signature::of).collect(Collectors.toUnmodifiableSet()),
+                        new ConcurrentHashMap<>());
+            }
+        };
+
+        static Declared of(Class<?> type) {
+            return DECLARED.get(type);
+        }
+    }
+
+    /**
+     * Methods with the same signature override each other.
+     */
+    private record Signature(String name, List<Class<?>> parameters) {
+        static Signature of(Method method) {
+            return new Signature(method.getName(), List.of(method.getParameterTypes()));
+        }
+    }
+
+    static <T> Members<T> scan(Class<T> component) {
+        if (Modifier.isAbstract(component.getModifiers())) {
+            throw new IllegalComponentException();
+        }
+        ContainerEvents.Scan scan = new ContainerEvents.Scan();
+        scan.begin();
+        AtomicReference<Members<?>> scanned = SCANNED.get(component);
+        Members<T> members = (Members<T>) scanned.get();
+        scan.cached = members != null;
+        if (members == null) {
+            members = members(component);
+            scanned.set(members);
+        }
+        scan.type = component;
+        scan.commit();
+        return members;
+    }
+
+    private static <T> Members<T> members(Class<T> component) {
+        Constructor<T> injectConstructor = getInjectConstructor(component);
+        List<Method> injectMethods = getInjectMethods(component);
+        List<Field> injectFields = getInjectFields(component);
+
+        if (injectFields.stream().anyMatch(f -> Modifier.isFinal(f.getModifiers()))) {
+            throw new IllegalComponentException();
+        }
+        if (injectMethods.stream().anyMatch(m -> m.getTypeParameters().length != 0)) {
+            throw new IllegalComponentException();
+        }
+        return new Members<>(component, injectConstructor, List.copyOf(injectMethods), List.copyOf(injectFields));
+    }
+
+    private static <T> Constructor<T> getInjectConstructor(Class<T> component) {
         List<Constructor<?>> injectConstructors = injectable(component.getConstructors()).toList();
         if (injectConstructors.size() > 1) {
             throw new IllegalComponentException();
         }
-        return Injectable.of((Constructor<T>) injectConstructors.stream().findFirst().orElseGet(() -> defaultConstructor(component)));
+        return (Constructor<T>) injectConstructors.stream().findFirst().orElseGet(() -> defaultConstructor(component));
     }
 
-    private static <T> List<Injectable<Field>> getInjectFields(Class<?> component) {
-        List<Field> injectField = traverse(component, (fields, current) -> injectable(current.getDeclaredFields()).toList());
-        return injectField.stream().map(Injectable::of).toList();
+    private static List<Field> getInjectFields(Class<?> component) {
+        return traverse(component, (fields, current) -> Declared.of(current).fields());
     }
 
-    private static List<Injectable<Method>> getInjectMethods(Class<?> component) {
-        List<Method> injectMethods = traverse(component, (methods, current) -> injectable(current.getDeclaredMethods())
-                .filter(m -> isOverrideByInjectMethod(methods, m))
-                .filter(m -> isOverrideByNoInjectMethod(component, m)).toList());
+    /**
+     * Inject methods overridden by an inject method of a subclass or a non inject method of the component are skipped.
+     */
+    private static List<Method> getInjectMethods(Class<?> component) {
+        Set<Signature> overridden = new HashSet<>(Declared.of(component).plainMethods());
+        List<Method> injectMethods = traverse(component, (methods, current) -> {
+            Declared declared = Declared.of(current);
+            List<Method> found = new ArrayList<>();
+            List<Signature> signatures = new ArrayList<>();
+            for (int i = 0; i < declared.methods().size(); i++) {
+                if (!overridden.contains(declared.signatures().get(i))) {
+                    found.add(declared.methods().get(i));
+                    signatures.add(declared.signatures().get(i));
+                }
+            }
+            overridden.addAll(signatures);
+            return found;
+        });
         Collections.reverse(injectMethods);
-        return injectMethods.stream().map(Injectable::of).toList();
+        return injectMethods;
     }
 
     private static <Type> Constructor<Type> defaultConstructor(Class<Type> implementation) {
@@ -139,16 +350,4 @@ class InjectionProvider<T> implements ComponentProvider<T> {
     private static <T extends AnnotatedElement> Stream<T> injectable(T[] declaredFields) {
         return stream(declaredFields).filter(f -> f.isAnnotationPresent(Inject.class));
     }
-
-    private static boolean isOverride(Method m, Method o) {
-        return o.getName().equals(m.getName()) && Arrays.equals(o.getParameterTypes(), m.getParameterTypes());
-    }
-
-    private static <T> boolean isOverrideByNoInjectMethod(Class<T> component, Method m) {
-        return stream(component.getDeclaredMethods()).filter(m1 -> !m1.isAnnotationPresent(Inject.class)).noneMatch(o -> isOverride(m, o));
-    }
-    private static boolean isOverrideByInjectMethod(List<Method> injectMethods, Method m) {
-        return injectMethods.stream().noneMatch(o -> isOverride(m, o));
-    }
 }
-
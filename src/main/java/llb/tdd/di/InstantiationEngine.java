@@ -0,0 +1,157 @@
+package llb.tdd.di;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InaccessibleObjectException;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.function.Supplier;
+
+import static java.lang.invoke.MethodType.methodType;
+
+/**
+ * @author LiLuBing
+ * @PackageName: llb.tdd.di
+ * @Description:
+ * @ClassName: InstantiationEngine
+ * @date 2022-11-13 8:40:12
+ * @ProjectName 01-di-container
+ * @Version V1.0
+ */
+public enum InstantiationEngine {
+    /**
+     * Constructor.newInstance, Field.set and Method.invoke on every injection. Members are made accessible once,
+     * so private members are injected like with method handles. Exceptions thrown by the component are unwrapped
+     * from InvocationTargetException, the same as method handles propagate them.
+     */
+    REFLECTION {
+        @Override
+        Injector constructor(Constructor<?> constructor) {
+            accessible(constructor);
+            return (instance, dependencies) -> {
+                try {
+                    return constructor.newInstance(dependencies);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            };
+        }
+
+        @Override
+        Injector field(Field field) {
+            accessible(field);
+            return (instance, dependencies) -> {
+                field.set(instance, dependencies[0]);
+                return instance;
+            };
+        }
+
+        @Override
+        Injector method(Method method) {
+            accessible(method);
+            return (instance, dependencies) -> {
+                try {
+                    method.invoke(instance, dependencies);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+                return instance;
+            };
+        }
+    },
+    /**
+     * Method handles created once per injectable, default constructors are turned into a
+     * LambdaMetafactory generated Supplier. Falls back to REFLECTION if a handle cannot be created.
+     */
+    METHOD_HANDLE {
+        @Override
+        Injector constructor(Constructor<?> constructor) {
+            try {
+                MethodHandle handle = lookup(constructor).unreflectConstructor(constructor);
+                if (constructor.getParameterCount() == 0) {
+                    return supplier(constructor, handle);
+                }
+                MethodHandle spread = handle.asSpreader(Object[].class, constructor.getParameterCount())
+                        .asType(methodType(Object.class, Object[].class));
+                return (instance, dependencies) -> spread.invokeExact(dependencies);
+            } catch (IllegalAccessException e) {
+                return REFLECTION.constructor(constructor);
+            }
+        }
+
+        @Override
+        Injector field(Field field) {
+            try {
+                MethodHandle setter = lookup(field).unreflectSetter(field)
+                        .asType(methodType(void.class, Object.class, Object.class));
+                return (instance, dependencies) -> {
+                    setter.invokeExact(instance, dependencies[0]);
+                    return instance;
+                };
+            } catch (IllegalAccessException e) {
+                return REFLECTION.field(field);
+            }
+        }
+
+        @Override
+        Injector method(Method method) {
+            try {
+                MethodHandle invoker = lookup(method).unreflect(method)
+                        .asSpreader(Object[].class, method.getParameterCount())
+                        .asType(methodType(void.class, Object.class, Object[].class));
+                return (instance, dependencies) -> {
+                    invoker.invokeExact(instance, dependencies);
+                    return instance;
+                };
+            } catch (IllegalAccessException e) {
+                return REFLECTION.method(method);
+            }
+        }
+
+        private static Injector supplier(Constructor<?> constructor, MethodHandle handle) {
+            try {
+                MethodHandles.Lookup lookup = lookup(constructor);
+                Supplier<?> supplier = (Supplier<?>) LambdaMetafactory.metafactory(lookup, "get", methodType(Supplier.class),
+                        methodType(Object.class), handle, methodType(constructor.getDeclaringClass())).getTarget().invoke();
+                return (instance, dependencies) -> supplier.get();
+            } catch (Throwable e) {
+                MethodHandle generic = handle.asType(methodType(Object.class));
+                return (instance, dependencies) -> generic.invokeExact();
+            }
+        }
+
+        private static MethodHandles.Lookup lookup(Member member) throws IllegalAccessException {
+            return MethodHandles.privateLookupIn(member.getDeclaringClass(), MethodHandles.lookup());
+        }
+    };
+
+    abstract Injector constructor(Constructor<?> constructor);
+
+    abstract Injector field(Field field);
+
+    abstract Injector method(Method method);
+
+    /**
+     * A member the container is not allowed to open, as in a package a named module does not open,
+     * is rejected when scanned with either engine.
+     */
+    private static void accessible(AccessibleObject member) {
+        try {
+            member.setAccessible(true);
+        } catch (InaccessibleObjectException | SecurityException e) {
+            throw new IllegalComponentException();
+        }
+    }
+
+    /**
+     * Injects dependencies into instance, returns the created instance for constructors.
+     */
+    interface Injector {
+        Object inject(Object instance, Object[] dependencies) throws Throwable;
+    }
+}
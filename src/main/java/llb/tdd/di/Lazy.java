@@ -0,0 +1,36 @@
+package llb.tdd.di;
+
+import jakarta.inject.Provider;
+
+/**
+ * @author LiLuBing
+ * @PackageName: llb.tdd.di
+ * @Description: A component created on the first get() and kept for every later one. Each injection point
+ * and each lookup gets its own Lazy, like a Provider it does not create the component before it is needed.
+ * @ClassName: Lazy
+ * @date 2022-11-24 8:16:52
+ * @ProjectName 01-di-container
+ * @Version V1.0
+ */
+public final class Lazy<T> {
+    private Provider<T> provider;
+    private volatile T instance;
+
+    Lazy(Provider<T> provider) {
+        this.provider = provider;
+    }
+
+    public T get() {
+        T instance = this.instance;
+        if (instance == null) {
+            synchronized (this) {
+                if (provider != null) {
+                    this.instance = provider.get();
+                    provider = null;
+                }
+                instance = this.instance;
+            }
+        }
+        return instance;
+    }
+}
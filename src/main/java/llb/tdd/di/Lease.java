@@ -0,0 +1,43 @@
+package llb.tdd.di;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * @author LiLuBing
+ * @PackageName: llb.tdd.di
+ * @Description: An instance borrowed from the context, close() gives it back to the pool it came from.
+ * Leases of components that are not pool scoped give nothing back.
+ * @ClassName: Lease
+ * @date 2022-11-22 8:20:05
+ * @ProjectName 01-di-container
+ * @Version V1.0
+ */
+public final class Lease<T> implements AutoCloseable {
+    private final AtomicReference<T> instance;
+    private final Consumer<T> release;
+
+    Lease(T instance, Consumer<T> release) {
+        this.instance = new AtomicReference<>(instance);
+        this.release = release;
+    }
+
+    public T get() {
+        T instance = this.instance.get();
+        if (instance == null) {
+            throw new IllegalStateException("lease is closed");
+        }
+        return instance;
+    }
+
+    /**
+     * Only the first close gives the instance back, the lease cannot be used afterwards.
+     */
+    @Override
+    public void close() {
+        T instance = this.instance.getAndSet(null);
+        if (instance != null && release != null) {
+            release.accept(instance);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package llb.tdd.di;
+
+import java.lang.annotation.Annotation;
+import java.util.*;
+
+/**
+ * @author LiLuBing
+ * @PackageName: llb.tdd.di
+ * @Description: Per qualifier set of the bindings holding an instance, trimmed to the cap whenever one caches a new
+ * instance. Bindings are held weakly, so a binding no longer reachable from any context is dropped, and bindings
+ * whose instance expired are dropped before anything is evicted. Readers only record their time on the binding,
+ * this is locked only when an instance is created.
+ * @ClassName: LeastRecentlyUsedEviction
+ * @date 2022-11-26 9:12:40
+ * @ProjectName 01-di-container
+ * @Version V1.0
+ */
+class LeastRecentlyUsedEviction implements CacheEviction {
+    private final int maxPerQualifier;
+    private final Map<Annotation, Set<Cached>> qualifiers = new HashMap<>();
+
+    LeastRecentlyUsedEviction(int maxPerQualifier) {
+        this.maxPerQualifier = maxPerQualifier;
+    }
+
+    @Override
+    public synchronized void cached(Cached cached) {
+        Annotation qualifier = cached.component() == null ? null : cached.component().qualifiers();
+        Set<Cached> holding = qualifiers.computeIfAbsent(qualifier, q -> Collections.newSetFromMap(new WeakHashMap<>()));
+        holding.removeIf(other -> other != cached && !other.holds());
+        holding.add(cached);
+        while (holding.size() > maxPerQualifier) {
+            Cached eldest = holding.stream().filter(other -> other != cached)
+                    .min(Comparator.comparingLong(Cached::lastUsed)).orElseThrow();
+            holding.remove(eldest);
+            eldest.evict();
+        }
+    }
+}
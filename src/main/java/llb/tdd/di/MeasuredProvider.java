@@ -0,0 +1,83 @@
+package llb.tdd.di;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * @author LiLuBing
+ * @PackageName: llb.tdd.di
+ * @Description: Times the creation of a component, time spent in nested measured creations on the same
+ * thread is reported as dependency time. Asynchronous creations are recorded when their future completes, time spent
+ * waiting for dependencies built on other threads counts as self time.
+ * @ClassName: MeasuredProvider
+ * @date 2022-11-16 8:30:41
+ * @ProjectName 01-di-container
+ * @Version V1.0
+ */
+class MeasuredProvider<T> implements ComponentProvider<T> {
+	private static final ThreadLocal<long[]> nested = ThreadLocal.withInitial(() -> new long[1]);
+
+	private final Component component;
+	private final ComponentProvider<T> provider;
+	private final ContainerMetrics metrics;
+
+	MeasuredProvider(Component component, ComponentProvider<T> provider, ContainerMetrics metrics) {
+		this.component = component;
+		this.provider = provider;
+		this.metrics = metrics;
+	}
+
+	@Override
+	public T get(Context context) {
+		long[] dependencies = nested.get();
+		long outer = dependencies[0];
+		dependencies[0] = 0;
+		long start = System.nanoTime();
+		T instance = null;
+		try {
+			instance = provider.get(context);
+		} finally {
+			long total = System.nanoTime() - start;
+			long dependencyTime = dependencies[0];
+			dependencies[0] = outer + total;
+			if (instance != null) {
+				metrics.created(component, total - dependencyTime, dependencyTime);
+			}
+		}
+		return instance;
+	}
+
+	@Override
+	public CompletableFuture<T> getAsync(Context context, Executor executor) {
+		long[] dependencies = nested.get();
+		long outer = dependencies[0];
+		dependencies[0] = 0;
+		long start = System.nanoTime();
+		CompletableFuture<T> future;
+		long dependencyTime;
+		try {
+			future = provider.getAsync(context, executor);
+		} finally {
+			dependencyTime = dependencies[0];
+			dependencies[0] = outer + System.nanoTime() - start;
+		}
+		return future.whenComplete((instance, failure) -> {
+			if (instance != null) {
+				long total = System.nanoTime() - start;
+				metrics.created(component, total - dependencyTime, dependencyTime);
+			}
+		});
+	}
+
+	@Override
+	public ComponentProvider<T> compile(Function<ComponentRef<?>, ComponentProvider<?>> resolver) {
+		return new MeasuredProvider<>(component, provider.compile(resolver), metrics);
+	}
+
+	@Override
+	public List<ComponentRef<?>> getDependencies() {
+		return provider.getDependencies();
+	}
+}
@@ -0,0 +1,310 @@
+package llb.tdd.di;
+
+import java.io.*;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.CRC32;
+
+/**
+ * @author LiLuBing
+ * @PackageName: llb.tdd.di
+ * @Description: On-disk index of what the container found by scanning, so a warm start can skip it.
+ * Members of a component are only used if the class files of the component and its superclasses still
+ * have the fingerprint they had when indexed, the dependency check is skipped for a graph already validated.
+ * <p>
+ * Layout: magic, version, SHA-256 digest of the validated graph, then per component its name, fingerprint,
+ * constructor parameters, fields and methods. Strings are a short length followed by UTF-8 bytes.
+ * Entries of components not bound in a start are kept when the file is rewritten.
+ * @ClassName: MetadataIndex
+ * @date 2022-11-18 8:35:12
+ * @ProjectName 01-di-container
+ * @Version V1.0
+ */
+class MetadataIndex {
+    private static final int MAGIC = 0x44494e58;
+    private static final int VERSION = 2;
+    private static final int DIGEST = 32;
+    private static final Map<String, Class<?>> PRIMITIVES = Map.of("boolean", boolean.class, "byte", byte.class,
+            "char", char.class, "short", short.class, "int", int.class, "long", long.class, "float", float.class, "double", double.class);
+
+    private final ByteBuffer buffer;
+    private final Map<String, Integer> positions;
+    private final ConcurrentMap<Class<?>, InjectionProvider.Members<?>> members = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, Long> fingerprints = new ConcurrentHashMap<>();
+    private volatile byte[] validated;
+    private volatile boolean dirty;
+
+    private MetadataIndex(ByteBuffer buffer, Map<String, Integer> positions, byte[] validated) {
+        this.buffer = buffer;
+        this.positions = positions;
+        this.validated = validated;
+    }
+
+    /**
+     * Maps the index file, a missing or unreadable file gives an empty index.
+     */
+    static MetadataIndex load(Path file) {
+        try (FileChannel channel = FileChannel.open(file)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return empty();
+            }
+            byte[] graph = new byte[DIGEST];
+            buffer.get(graph);
+            Map<String, Integer> positions = new LinkedHashMap<>();
+            for (int count = buffer.getInt(); count > 0; count--) {
+                positions.put(string(buffer), buffer.position());
+                skipMembers(buffer);
+            }
+            return new MetadataIndex(buffer, positions, graph);
+        } catch (IOException | RuntimeException e) {
+            return empty();
+        }
+    }
+
+    private static MetadataIndex empty() {
+        return new MetadataIndex(ByteBuffer.allocate(0), Map.of(), new byte[DIGEST]);
+    }
+
+    /**
+     * Indexed members of the component, empty if not indexed or any class file of it changed since.
+     */
+    <T> Optional<InjectionProvider.Members<T>> members(Class<T> component) {
+        InjectionProvider.Members<T> known = (InjectionProvider.Members<T>) members.get(component);
+        if (known != null) {
+            return Optional.of(known);
+        }
+        Integer position = positions.get(component.getName());
+        if (position == null) {
+            return Optional.empty();
+        }
+        try {
+            ByteBuffer entry = buffer.duplicate().position(position);
+            if (entry.getLong() != fingerprint(component)) {
+                return Optional.empty();
+            }
+            InjectionProvider.Members<T> read = readMembers(entry, component);
+            members.put(component, read);
+            return Optional.of(read);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    void record(InjectionProvider.Members<?> scanned) {
+        if (fingerprint(scanned.component()) != 0) {
+            members.put(scanned.component(), scanned);
+            dirty = true;
+        }
+    }
+
+    boolean isValidated(byte[] graph) {
+        return Arrays.equals(graph, validated);
+    }
+
+    void validated(byte[] graph) {
+        if (!Arrays.equals(validated, graph)) {
+            validated = graph;
+            dirty = true;
+        }
+    }
+
+    /**
+     * Rewrites the file if this start scanned or validated anything the file did not have, entries this start
+     * did not read or scan are copied over as they are. The new file replaces the old one atomically.
+     */
+    void writeIfChanged(Path file) throws IOException {
+        if (!dirty) {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.write(validated);
+        Set<String> scanned = new HashSet<>();
+        members.keySet().forEach(component -> scanned.add(component.getName()));
+        List<String> kept = positions.keySet().stream().filter(name -> !scanned.contains(name)).toList();
+        out.writeInt(members.size() + kept.size());
+        for (String name : kept) {
+            ByteBuffer entry = buffer.duplicate().position(positions.get(name));
+            int start = entry.position();
+            skipMembers(entry);
+            byte[] raw = new byte[entry.position() - start];
+            entry.position(start).get(raw);
+            write(out, name);
+            out.write(raw);
+        }
+        for (InjectionProvider.Members<?> entry : members.values()) {
+            write(out, entry.component().getName());
+            out.writeLong(fingerprint(entry.component()));
+            writeTypes(out, entry.constructor().getParameterTypes());
+            out.writeShort(entry.fields().size());
+            for (Field field : entry.fields()) {
+                write(out, field.getDeclaringClass().getName());
+                write(out, field.getName());
+            }
+            out.writeShort(entry.methods().size());
+            for (Method method : entry.methods()) {
+                write(out, method.getDeclaringClass().getName());
+                write(out, method.getName());
+                writeTypes(out, method.getParameterTypes());
+            }
+        }
+        Path temporary = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        Files.write(temporary, bytes.toByteArray());
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        dirty = false;
+    }
+
+    /**
+     * SHA-256 of every edge as the dependency check sees it, stable across JVMs and independent of binding order.
+     * Components are named by type, qualifier annotation type and the qualifier's string form, and marked request
+     * scoped or scoped, so a change of scope is checked for scope widening again.
+     */
+    static byte[] fingerprint(Map<Component, ComponentProvider<?>> components, Set<Component> requestScoped, Set<Component> scoped) {
+        List<String> edges = new ArrayList<>(components.size());
+        for (Map.Entry<Component, ComponentProvider<?>> entry : components.entrySet()) {
+            StringBuilder edge = new StringBuilder();
+            append(edge, entry.getKey());
+            append(edge, requestScoped.contains(entry.getKey()) ? "request" : scoped.contains(entry.getKey()) ? "scoped" : "");
+            for (ComponentRef<?> dependency : entry.getValue().getDependencies()) {
+                append(edge, dependency.isContainer() ? dependency.getContainer().getTypeName() : "");
+                append(edge, dependency.component());
+            }
+            edges.add(edge.toString());
+        }
+        Collections.sort(edges);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String edge : edges) {
+                byte[] bytes = edge.getBytes(StandardCharsets.UTF_8);
+                digest.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+                digest.update(bytes);
+            }
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void append(StringBuilder edge, Component component) {
+        append(edge, component.type().getName());
+        append(edge, component.qualifiers() == null ? "" : component.qualifiers().annotationType().getName());
+        append(edge, component.qualifiers() == null ? "" : component.qualifiers().toString());
+    }
+
+    /**
+     * Length prefixed, so no two different edge lists give the same string.
+     */
+    private static void append(StringBuilder edge, String value) {
+        edge.append(value.length()).append(':').append(value);
+    }
+
+    /**
+     * CRC32 of the class files of the component and its superclasses, 0 if a class file is not readable.
+     */
+    private long fingerprint(Class<?> component) {
+        return fingerprints.computeIfAbsent(component, type -> {
+            long fingerprint = 1;
+            for (Class<?> current = type; current != Object.class; current = current.getSuperclass()) {
+                String name = current.getName();
+                try (InputStream in = current.getResourceAsStream(name.substring(name.lastIndexOf('.') + 1) + ".class")) {
+                    if (in == null) {
+                        return 0L;
+                    }
+                    CRC32 crc = new CRC32();
+                    crc.update(in.readAllBytes());
+                    fingerprint = fingerprint * 31 + crc.getValue();
+                } catch (IOException e) {
+                    return 0L;
+                }
+            }
+            return fingerprint;
+        });
+    }
+
+    private static <T> InjectionProvider.Members<T> readMembers(ByteBuffer entry, Class<T> component) throws ReflectiveOperationException {
+        Constructor<T> constructor = component.getDeclaredConstructor(readTypes(entry, component));
+        List<Field> fields = new ArrayList<>();
+        for (int count = entry.getShort(); count > 0; count--) {
+            fields.add(declaring(component, string(entry)).getDeclaredField(string(entry)));
+        }
+        List<Method> methods = new ArrayList<>();
+        for (int count = entry.getShort(); count > 0; count--) {
+            Class<?> declaring = declaring(component, string(entry));
+            methods.add(declaring.getDeclaredMethod(string(entry), readTypes(entry, component)));
+        }
+        return new InjectionProvider.Members<>(component, constructor, List.copyOf(methods), List.copyOf(fields));
+    }
+
+    private static Class<?> declaring(Class<?> component, String name) throws ClassNotFoundException {
+        for (Class<?> current = component; current != null; current = current.getSuperclass()) {
+            if (current.getName().equals(name)) {
+                return current;
+            }
+        }
+        throw new ClassNotFoundException(name);
+    }
+
+    private static Class<?>[] readTypes(ByteBuffer entry, Class<?> component) throws ClassNotFoundException {
+        Class<?>[] types = new Class<?>[entry.getShort()];
+        for (int i = 0; i < types.length; i++) {
+            String name = string(entry);
+            Class<?> primitive = PRIMITIVES.get(name);
+            types[i] = primitive != null ? primitive : Class.forName(name, false, component.getClassLoader());
+        }
+        return types;
+    }
+
+    private static void skipMembers(ByteBuffer buffer) {
+        buffer.getLong();
+        skipTypes(buffer);
+        for (int count = buffer.getShort(); count > 0; count--) {
+            string(buffer);
+            string(buffer);
+        }
+        for (int count = buffer.getShort(); count > 0; count--) {
+            string(buffer);
+            string(buffer);
+            skipTypes(buffer);
+        }
+    }
+
+    private static void skipTypes(ByteBuffer buffer) {
+        for (int count = buffer.getShort(); count > 0; count--) {
+            string(buffer);
+        }
+    }
+
+    private static void writeTypes(DataOutputStream out, Class<?>[] types) throws IOException {
+        out.writeShort(types.length);
+        for (Class<?> type : types) {
+            write(out, type.getName());
+        }
+    }
+
+    private static void write(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String string(ByteBuffer buffer) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
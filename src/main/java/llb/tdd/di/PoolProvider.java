@@ -0,0 +1,123 @@
+package llb.tdd.di;
+
+import java.lang.annotation.Annotation;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * @author LiLuBing
+ * @PackageName: llb.tdd.di
+ * @Description: Idle instances are kept on a lock-free stack bounded by the size of the scope,
+ * the compiled provider shares the stack with the one it was compiled from.
+ * @ClassName: PoolProvider
+ * @date 2022-11-22 8:31:17
+ * @ProjectName 01-di-container
+ * @Version V1.0
+ */
+class PoolProvider<T> implements ComponentProvider<T> {
+	private final ComponentProvider<T> provider;
+	private final FreeList<T> idle;
+
+	PoolProvider(ComponentProvider<T> provider, int size) {
+		this(provider, new FreeList<>(size));
+	}
+
+	private PoolProvider(ComponentProvider<T> provider, FreeList<T> idle) {
+		this.provider = provider;
+		this.idle = idle;
+	}
+
+	/**
+	 * A borrow that is never given back, the pool does not wait for it.
+	 */
+	@Override
+	public T get(Context context) {
+		T instance = idle.pop();
+		return instance != null ? instance : provider.get(context);
+	}
+
+	@Override
+	public Lease<T> lease(Context context) {
+		return new Lease<>(get(context), idle::push);
+	}
+
+	/**
+	 * Empty pool of the same size, leases of the previous pool are given back to it.
+	 */
+	@Override
+	public ComponentProvider<T> renew() {
+		return new PoolProvider<>(provider, idle.capacity);
+	}
+
+	@Override
+	public ComponentProvider<T> compile(Function<ComponentRef<?>, ComponentProvider<?>> resolver) {
+		return new PoolProvider<>(provider.compile(resolver), idle);
+	}
+
+	@Override
+	public List<ComponentRef<?>> getDependencies() {
+		return provider.getDependencies();
+	}
+
+	static class Scope implements ScopeProvider {
+		@Override
+		public ComponentProvider<?> create(ComponentProvider<?> provider) {
+			return new PoolProvider<>(provider, 16);
+		}
+
+		@Override
+		public ComponentProvider<?> create(Annotation scope, ComponentProvider<?> provider) {
+			if (((PoolScoped) scope).size() < 0) {
+				throw new IllegalComponentException();
+			}
+			return new PoolProvider<>(provider, ((PoolScoped) scope).size());
+		}
+	}
+
+	/**
+	 * Treiber stack, a new node per push so a node is never seen twice by compareAndSet.
+	 */
+	private static class FreeList<T> {
+		private final AtomicReference<Node<T>> head = new AtomicReference<>();
+		private final AtomicInteger size = new AtomicInteger();
+		private final int capacity;
+
+		FreeList(int capacity) {
+			this.capacity = capacity;
+		}
+
+		T pop() {
+			Node<T> top;
+			do {
+				top = head.get();
+				if (top == null) {
+					return null;
+				}
+			} while (!head.compareAndSet(top, top.next));
+			size.decrementAndGet();
+			return top.instance;
+		}
+
+		void push(T instance) {
+			if (size.incrementAndGet() > capacity) {
+				size.decrementAndGet();
+				return;
+			}
+			Node<T> node = new Node<>(instance);
+			do {
+				node.next = head.get();
+			} while (!head.compareAndSet(node.next, node));
+		}
+	}
+
+	private static class Node<T> {
+		private final T instance;
+		private Node<T> next;
+
+		Node(T instance) {
+			this.instance = instance;
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package llb.tdd.di;
+
+import jakarta.inject.Scope;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * @author LiLuBing
+ * @PackageName: llb.tdd.di
+ * @Description: Instances are borrowed from a pool of the binding, look up or inject a Lease to give them back.
+ * At most size idle instances are kept, a borrow with none idle creates a new one.
+ * @ClassName: PoolScoped
+ * @date 2022-11-22 8:12:40
+ * @ProjectName 01-di-container
+ * @Version V1.0
+ */
+@Scope
+@Documented
+@Retention(RUNTIME)
+public @interface PoolScoped {
+    int size() default 16;
+}
@@ -0,0 +1,36 @@
+package llb.tdd.di;
+
+import jakarta.inject.Scope;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * @author LiLuBing
+ * @PackageName: llb.tdd.di
+ * @Description: One instance like a singleton, but only softly or weakly held by the binding. Once the garbage
+ * collector reclaimed it, the next get() creates it again.
+ * @ClassName: ReclaimableScoped
+ * @date 2022-11-25 8:09:33
+ * @ProjectName 01-di-container
+ * @Version V1.0
+ */
+@Scope
+@Documented
+@Retention(RUNTIME)
+public @interface ReclaimableScoped {
+    Strength value() default Strength.SOFT;
+
+    enum Strength {
+        /**
+         * Kept until the heap runs short, for caches that are expensive to build.
+         */
+        SOFT,
+        /**
+         * Kept while anything else still uses it.
+         */
+        WEAK
+    }
+}
@@ -0,0 +1,78 @@
+package llb.tdd.di;
+
+import java.lang.annotation.Annotation;
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * @author LiLuBing
+ * @PackageName: llb.tdd.di
+ * @Description: Holds the instance through a soft or weak reference, a cleared reference is filled again
+ * under the lock like a singleton created for the first time.
+ * @ClassName: ReferenceScopeProvider
+ * @date 2022-11-25 8:21:47
+ * @ProjectName 01-di-container
+ * @Version V1.0
+ */
+class ReferenceScopeProvider<T> implements ComponentProvider<T> {
+	private volatile Reference<T> reference;
+	private final ComponentProvider<T> provider;
+	private final ReclaimableScoped.Strength strength;
+
+	ReferenceScopeProvider(ComponentProvider<T> provider, ReclaimableScoped.Strength strength) {
+		this.provider = provider;
+		this.strength = strength;
+	}
+
+	@Override
+	public T get(Context context) {
+		return get(context, provider);
+	}
+
+	@Override
+	public ComponentProvider<T> renew() {
+		return new ReferenceScopeProvider<>(provider, strength);
+	}
+
+	@Override
+	public ComponentProvider<T> compile(Function<ComponentRef<?>, ComponentProvider<?>> resolver) {
+		ComponentProvider<T> compiled = provider.compile(resolver);
+		return context -> get(context, compiled);
+	}
+
+	private T get(Context context, ComponentProvider<T> provider) {
+		Reference<T> reference = this.reference;
+		T instance = reference == null ? null : reference.get();
+		if (instance == null) {
+			synchronized (this) {
+				reference = this.reference;
+				instance = reference == null ? null : reference.get();
+				if (instance == null) {
+					instance = provider.get(context);
+					this.reference = strength == ReclaimableScoped.Strength.WEAK ? new WeakReference<>(instance) : new SoftReference<>(instance);
+				}
+			}
+		}
+		return instance;
+	}
+
+	@Override
+	public List<ComponentRef<?>> getDependencies() {
+		return provider.getDependencies();
+	}
+
+	static class Scope implements ScopeProvider {
+		@Override
+		public ComponentProvider<?> create(ComponentProvider<?> provider) {
+			return new ReferenceScopeProvider<>(provider, ReclaimableScoped.Strength.SOFT);
+		}
+
+		@Override
+		public ComponentProvider<?> create(Annotation scope, ComponentProvider<?> provider) {
+			return new ReferenceScopeProvider<>(provider, ((ReclaimableScoped) scope).value());
+		}
+	}
+}
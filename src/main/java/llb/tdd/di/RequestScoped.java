@@ -0,0 +1,24 @@
+package llb.tdd.di;
+
+import jakarta.inject.Scope;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * @author LiLuBing
+ * @PackageName: llb.tdd.di
+ * @Description: One instance per context, a child from Context.child() holds its own instances
+ * while the root context holds the instances looked up from the root.
+ * @ClassName: RequestScoped
+ * @date 2022-11-19 8:20:34
+ * @ProjectName 01-di-container
+ * @Version V1.0
+ */
+@Scope
+@Documented
+@Retention(RUNTIME)
+public @interface RequestScoped {
+}
@@ -0,0 +1,37 @@
+package llb.tdd.di;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * @author LiLuBing
+ * @PackageName: llb.tdd.di
+ * @Description: Marks a binding as request scoped, CompiledContext gives every such provider an instance slot
+ * and the Binding looks instances up in the slots of the context it is called with.
+ * @ClassName: RequestScopedProvider
+ * @date 2022-11-19 8:31:02
+ * @ProjectName 01-di-container
+ * @Version V1.0
+ */
+class RequestScopedProvider<T> implements ComponentProvider<T> {
+	private final ComponentProvider<T> provider;
+
+	RequestScopedProvider(ComponentProvider<T> provider) {
+		this.provider = provider;
+	}
+
+	@Override
+	public T get(Context context) {
+		return provider.get(context);
+	}
+
+	@Override
+	public ComponentProvider<T> compile(Function<ComponentRef<?>, ComponentProvider<?>> resolver) {
+		return provider.compile(resolver);
+	}
+
+	@Override
+	public List<ComponentRef<?>> getDependencies() {
+		return provider.getDependencies();
+	}
+}
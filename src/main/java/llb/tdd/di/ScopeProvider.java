@@ -1,5 +1,7 @@
 package llb.tdd.di;
 
+import java.lang.annotation.Annotation;
+
 /**
  * @author LiLuBing
  * @PackageName: llb.tdd.di
@@ -11,4 +13,24 @@ package llb.tdd.di;
  */
 interface ScopeProvider {
 	ComponentProvider<?> create(ComponentProvider<?> provider);
+
+	/**
+	 * Scopes configured by the attributes of their annotation read them here.
+	 */
+	default ComponentProvider<?> create(Annotation scope, ComponentProvider<?> provider) {
+		return create(provider);
+	}
+
+	/**
+	 * Scopes that report to metrics and events, or name the component otherwise, read the bound component here.
+	 */
+	default ComponentProvider<?> create(Annotation scope, ComponentProvider<?> provider, Target target) {
+		return create(scope, provider);
+	}
+
+	/**
+	 * The component a scope is created for, the first one for a component bound with several qualifiers.
+	 */
+	record Target(Component component, ContainerMetrics metrics, ContainerEvents.Subject subject) {
+	}
 }
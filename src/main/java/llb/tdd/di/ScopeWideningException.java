@@ -0,0 +1,31 @@
+package llb.tdd.di;
+
+/**
+ * @author LiLuBing
+ * @PackageName: llb.tdd.di
+ * @Description: A scoped component other than request scoped depends on a request scoped component directly or
+ * through unscoped components, so the instance of the first request would be kept for every later request.
+ * The dependency has to be injected as a Provider or Lazy instead.
+ * @ClassName: ScopeWideningException
+ * @date 2022-11-17 9:12:26
+ * @ProjectName 01-di-container
+ * @Version V1.0
+ */
+public class ScopeWideningException extends RuntimeException {
+
+	private Component component;
+	private Component dependency;
+
+	public ScopeWideningException(Component component, Component dependency) {
+		this.component = component;
+		this.dependency = dependency;
+	}
+
+	public Component getDependency() {
+		return dependency;
+	}
+
+	public Component getComponent() {
+		return component;
+	}
+}
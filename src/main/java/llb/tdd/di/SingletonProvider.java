@@ -1,6 +1,10 @@
 package llb.tdd.di;
 
+import java.lang.annotation.Annotation;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 
 /**
  * @author LiLuBing
@@ -12,23 +16,99 @@ import java.util.List;
  * @Version V1.0
  */
 class SingletonProvider<T> implements ComponentProvider<T> {
-	private T singleton;
-	private ComponentProvider<T> provider;
+	private volatile T singleton;
+	private final ComponentProvider<T> provider;
+	private final ScopeProvider.Target target;
+	private final Component component;
+	private final ContainerMetrics metrics;
 
 	public SingletonProvider(ComponentProvider<T> provider) {
+		this(provider, new ScopeProvider.Target(null, ContainerMetrics.NONE, null));
+	}
+
+	SingletonProvider(ComponentProvider<T> provider, ScopeProvider.Target target) {
 		this.provider = provider;
+		this.target = target;
+		this.component = target.component();
+		this.metrics = target.metrics();
+	}
+
+	/**
+	 * Same binding without the instance, to be created again with the current dependencies.
+	 */
+	@Override
+	public SingletonProvider<T> renew() {
+		return new SingletonProvider<>(provider, target);
 	}
 
 	@Override
 	public T get(Context context) {
-		if (singleton == null) {
-			singleton = provider.get(context);
+		return get(context, provider);
+	}
+
+	@Override
+	public ComponentProvider<T> compile(Function<ComponentRef<?>, ComponentProvider<?>> resolver) {
+		ComponentProvider<T> compiled = provider.compile(resolver);
+		return new ComponentProvider<>() {
+			@Override
+			public T get(Context context) {
+				return SingletonProvider.this.get(context, compiled);
+			}
+
+			@Override
+			public CompletableFuture<T> getAsync(Context context, Executor executor) {
+				T instance = singleton;
+				if (instance != null) {
+					metrics.singletonHit(component);
+					return CompletableFuture.completedFuture(instance);
+				}
+				return CompletableFuture.supplyAsync(() -> SingletonProvider.this.get(context, compiled), executor);
+			}
+		};
+	}
+
+	private T get(Context context, ComponentProvider<T> provider) {
+		T instance = singleton;
+		if (instance == null) {
+			synchronized (this) {
+				instance = singleton;
+				if (instance == null) {
+					metrics.singletonMiss(component);
+					return singleton = create(context, provider);
+				}
+			}
+		}
+		metrics.singletonHit(component);
+		return instance;
+	}
+
+	private T create(Context context, ComponentProvider<T> provider) {
+		ContainerEvents.Singleton event = new ContainerEvents.Singleton();
+		if (!event.isEnabled()) {
+			return provider.get(context);
+		}
+		event.begin();
+		try {
+			return provider.get(context);
+		} finally {
+			event.commit(target.subject(), ContainerEvents.depth());
 		}
-		return singleton;
 	}
 
 	@Override
 	public List<ComponentRef<?>> getDependencies() {
 		return provider.getDependencies();
 	}
+
+	static class Scope implements ScopeProvider {
+		@Override
+		public ComponentProvider<?> create(ComponentProvider<?> provider) {
+			return new SingletonProvider<>(provider);
+		}
+
+		@Override
+		public ComponentProvider<?> create(Annotation scope, ComponentProvider<?> provider, Target target) {
+			return new SingletonProvider<>(provider, target);
+		}
+	}
 }
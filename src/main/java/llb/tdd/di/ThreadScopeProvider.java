@@ -0,0 +1,52 @@
+package llb.tdd.di;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * @author LiLuBing
+ * @PackageName: llb.tdd.di
+ * @Description:
+ * @ClassName: ThreadScopeProvider
+ * @date 2022-11-20 8:15:09
+ * @ProjectName 01-di-container
+ * @Version V1.0
+ */
+class ThreadScopeProvider<T> implements ComponentProvider<T> {
+	private final ThreadLocal<T> instances = new ThreadLocal<>();
+	private final ComponentProvider<T> provider;
+
+	ThreadScopeProvider(ComponentProvider<T> provider) {
+		this.provider = provider;
+	}
+
+	@Override
+	public T get(Context context) {
+		return get(context, provider);
+	}
+
+	@Override
+	public ComponentProvider<T> renew() {
+		return new ThreadScopeProvider<>(provider);
+	}
+
+	@Override
+	public ComponentProvider<T> compile(Function<ComponentRef<?>, ComponentProvider<?>> resolver) {
+		ComponentProvider<T> compiled = provider.compile(resolver);
+		return context -> get(context, compiled);
+	}
+
+	private T get(Context context, ComponentProvider<T> provider) {
+		T instance = instances.get();
+		if (instance == null) {
+			instance = provider.get(context);
+			instances.set(instance);
+		}
+		return instance;
+	}
+
+	@Override
+	public List<ComponentRef<?>> getDependencies() {
+		return provider.getDependencies();
+	}
+}
@@ -0,0 +1,23 @@
+package llb.tdd.di;
+
+import jakarta.inject.Scope;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * @author LiLuBing
+ * @PackageName: llb.tdd.di
+ * @Description: One instance per thread, kept in a ThreadLocal of the binding until the thread ends.
+ * @ClassName: ThreadScoped
+ * @date 2022-11-20 8:10:51
+ * @ProjectName 01-di-container
+ * @Version V1.0
+ */
+@Scope
+@Documented
+@Retention(RUNTIME)
+public @interface ThreadScoped {
+}
@@ -4,7 +4,11 @@ import jakarta.inject.Inject;
 import jakarta.inject.Provider;
 import jakarta.inject.Scope;
 import jakarta.inject.Singleton;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -13,7 +17,17 @@ import org.mockito.internal.util.collections.Sets;
 import java.lang.annotation.Annotation;
 import java.lang.annotation.Documented;
 import java.lang.annotation.Retention;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
@@ -22,6 +36,8 @@ import static org.junit.Assert.*;
 import static org.junit.Assert.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 /**
  * @author LiLuBing
@@ -111,6 +127,19 @@ class ContextTest {
             }
         }
 
+        @Test
+        public void should_scan_component_when_get_context() {
+            config.bind(TestComponent.class, ComponentWithMultiInjectConstructors.class);
+            assertThrows(IllegalComponentException.class, () -> config.getContext());
+        }
+
+        @Test
+        public void should_not_scan_component_replaced_before_get_context() {
+            config.bind(TestComponent.class, ComponentWithMultiInjectConstructors.class);
+            config.bind(TestComponent.class, ComponentWithDefaultConstructor.class);
+            assertTrue(config.getContext().get(ComponentRef.of(TestComponent.class)).isPresent());
+        }
+
         @Test
         public void should_return_empty_if_component_not_defined() {
             Optional<TestComponent> component = config.getContext().get(ComponentRef.of(TestComponent.class));
@@ -138,6 +167,234 @@ class ContextTest {
             assertSame(instance, provider.get());
         }
 
+        @Test
+        public void should_retrieve_same_provider_for_every_lookup_and_injection() {
+            config.bind(Dependency.class, new Dependency() {
+            });
+            config.bind(ProviderInjection.class, ProviderInjection.class);
+
+            Context context = config.getContext();
+            ComponentRef<Provider<Dependency>> ref = new ComponentRef<>() {
+            };
+            Provider<Dependency> provider = context.get(ref).get();
+
+            assertSame(provider, context.get(ref).get());
+            assertSame(provider, context.handle(ComponentRef.of(Dependency.class)).get());
+            assertSame(provider, context.get(ComponentRef.of(ProviderInjection.class)).get().dependency);
+            assertSame(provider, context.get(ComponentRef.of(ProviderInjection.class)).get().dependency);
+        }
+
+        static class ProviderInjection {
+            @Inject
+            Provider<Dependency> dependency;
+        }
+
+        static class CountedDependency implements Dependency {
+            static final AtomicInteger created = new AtomicInteger();
+
+            public CountedDependency() {
+                created.incrementAndGet();
+            }
+        }
+
+        static class LazyInjection {
+            @Inject
+            Lazy<Dependency> dependency;
+        }
+
+        @Test
+        public void should_retrieve_bind_type_as_lazy_created_once_per_lookup() {
+            config.bind(Dependency.class, CountedDependency.class);
+            Context context = config.getContext();
+            ComponentRef<Lazy<Dependency>> ref = new ComponentRef<>() {
+            };
+            CountedDependency.created.set(0);
+
+            Lazy<Dependency> lazy = context.get(ref).get();
+            assertEquals(0, CountedDependency.created.get());
+
+            Dependency dependency = lazy.get();
+            assertSame(dependency, lazy.get());
+            assertEquals(1, CountedDependency.created.get());
+            assertNotSame(dependency, context.get(ref).get().get());
+        }
+
+        @Test
+        public void should_not_create_lazy_injected_dependency_until_used() {
+            config.bind(Dependency.class, CountedDependency.class);
+            config.bind(LazyInjection.class, LazyInjection.class);
+            Context context = config.getContext();
+            CountedDependency.created.set(0);
+
+            LazyInjection component = context.get(ComponentRef.of(LazyInjection.class)).get();
+            assertEquals(0, CountedDependency.created.get());
+
+            assertSame(component.dependency.get(), component.dependency.get());
+            assertEquals(1, CountedDependency.created.get());
+            assertNotSame(component.dependency.get(), context.get(ComponentRef.of(LazyInjection.class)).get().dependency.get());
+        }
+
+        @Nested
+        public class Async {
+            static CyclicBarrier barrier;
+
+            static class BlockingDependency implements Dependency {
+                @Inject
+                public BlockingDependency() throws Exception {
+                    barrier.await(5, TimeUnit.SECONDS);
+                }
+            }
+
+            static class BlockingAnotherDependency implements AnotherDependency {
+                @Inject
+                public BlockingAnotherDependency() throws Exception {
+                    barrier.await(5, TimeUnit.SECONDS);
+                }
+            }
+
+            static class FailingDependency implements AnotherDependency {
+                @Inject
+                public FailingDependency() {
+                    throw new IllegalStateException("failed");
+                }
+            }
+
+            static class Parallel {
+                final Dependency dependency;
+                @Inject
+                AnotherDependency another;
+
+                @Inject
+                public Parallel(Dependency dependency) {
+                    this.dependency = dependency;
+                }
+            }
+
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+
+            @BeforeEach
+            public void before() {
+                barrier = new CyclicBarrier(2);
+                config.bind(Parallel.class, Parallel.class);
+            }
+
+            @AfterEach
+            public void after() {
+                executor.shutdownNow();
+            }
+
+            @Test
+            public void should_build_independent_dependencies_concurrently() {
+                config.bind(Dependency.class, BlockingDependency.class);
+                config.bind(AnotherDependency.class, BlockingAnotherDependency.class);
+
+                Parallel parallel = config.getContext().getAsync(ComponentRef.of(Parallel.class), executor).get().join();
+
+                assertTrue(parallel.dependency instanceof BlockingDependency);
+                assertTrue(parallel.another instanceof BlockingAnotherDependency);
+            }
+
+            @Test
+            public void should_build_singleton_dependency_once() {
+                config.bind(Dependency.class, WithScope.SingletonAnnotated.class);
+                config.bind(AnotherDependency.class, new AnotherDependency() {
+                });
+                Context context = config.getContext();
+
+                CompletableFuture<Parallel> first = context.getAsync(ComponentRef.of(Parallel.class), executor).get();
+                CompletableFuture<Parallel> second = context.getAsync(ComponentRef.of(Parallel.class), executor).get();
+
+                assertSame(first.join().dependency, second.join().dependency);
+                assertNotSame(first.join(), second.join());
+            }
+
+            @Test
+            public void should_complete_exceptionally_if_dependency_failed() {
+                config.bind(Dependency.class, new Dependency() {
+                });
+                config.bind(AnotherDependency.class, FailingDependency.class);
+
+                CompletableFuture<Parallel> parallel = config.getContext().getAsync(ComponentRef.of(Parallel.class), executor).get();
+
+                CompletionException exception = assertThrows(CompletionException.class, parallel::join);
+                assertEquals("failed", exception.getCause().getMessage());
+            }
+
+            @Test
+            public void should_return_empty_if_component_not_defined_async() {
+                config.bind(Dependency.class, new Dependency() {
+                });
+                config.bind(AnotherDependency.class, new AnotherDependency() {
+                });
+                assertTrue(config.getContext().getAsync(ComponentRef.of(TestComponent.class), executor).isEmpty());
+            }
+
+            @Test
+            public void should_resolve_on_calling_thread_if_context_cannot_build_concurrently() {
+                Dependency dependency = new Dependency() {
+                };
+                Context context = new Context() {
+                    @Override
+                    public <ComponentType> Optional<ComponentType> get(ComponentRef<ComponentType> ref) {
+                        if (ref.component().type() == AnotherDependency.class) {
+                            throw new IllegalStateException("failed");
+                        }
+                        return ref.equals(ComponentRef.of(Dependency.class)) ? Optional.of((ComponentType) dependency) : Optional.empty();
+                    }
+                };
+
+                assertSame(dependency, context.getAsync(ComponentRef.of(Dependency.class), executor).get().join());
+                assertTrue(context.getAsync(ComponentRef.of(TestComponent.class), executor).isEmpty());
+                assertTrue(context.getAsync(ComponentRef.of(AnotherDependency.class), executor).get().isCompletedExceptionally());
+            }
+        }
+
+        @Test
+        public void should_retrieve_bind_type_via_reusable_handle() {
+            TestComponent instance = new TestComponent() {
+            };
+            config.bind(TestComponent.class, instance);
+
+            Context context = config.getContext();
+
+            Provider<TestComponent> handle = context.handle(ComponentRef.of(TestComponent.class)).get();
+            assertSame(instance, handle.get());
+            assertSame(handle, context.handle(ComponentRef.of(TestComponent.class)).get());
+        }
+
+        @Test
+        public void should_return_empty_handle_if_component_not_defined() {
+            assertTrue(config.getContext().handle(ComponentRef.of(TestComponent.class)).isEmpty());
+        }
+
+        @Test
+        public void should_not_allocate_when_get_cached_singleton_via_handle() {
+            config.bind(Dependency.class, new Dependency() {
+            });
+            config.bind(TestComponent.class, ConstructorInjectionSingleton.class);
+            Provider<TestComponent> handle = config.getContext().handle(ComponentRef.of(TestComponent.class)).get();
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) java.lang.management.ManagementFactory.getThreadMXBean();
+            for (int i = 0; i < 20_000; i++) {
+                handle.get();
+            }
+
+            long before = threads.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < 100_000; i++) {
+                handle.get();
+            }
+            long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+            assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+        }
+
+        @Singleton
+        static class ConstructorInjectionSingleton extends ConstructorInjection {
+            @Inject
+            public ConstructorInjectionSingleton(Dependency dependency) {
+                super(dependency);
+            }
+        }
+
         @Test
         public void should_not_retrieve_bind_as_unsupported_container() {
             TestComponent instance = new TestComponent() {
@@ -146,10 +403,126 @@ class ContextTest {
 
             Context context = config.getContext();
 
-            assertFalse(context.get(new ComponentRef<List<TestComponent>>() {
+            assertFalse(context.get(new ComponentRef<java.util.function.Supplier<TestComponent>>() {
             }).isPresent());
         }
 
+        @Nested
+        public class Multibinding {
+            Dependency dependency = new Dependency() {
+            };
+            Dependency named = new Dependency() {
+            };
+            Dependency skywalker = new Dependency() {
+            };
+
+            static class Handlers {
+                @Inject
+                List<Dependency> list;
+                @Inject
+                Set<Dependency> set;
+                @Inject
+                Map<Annotation, Dependency> map;
+            }
+
+            @BeforeEach
+            public void before() {
+                config.bind(Dependency.class, dependency);
+                config.bind(Dependency.class, named, new NamedLiteral("named"));
+                config.bind(Dependency.class, skywalker, new SkywalkerLiteral());
+            }
+
+            static class StringKeyedHandlers {
+                @Inject
+                Map<String, Dependency> map;
+            }
+
+            @Test
+            public void should_throw_exception_if_map_not_keyed_by_qualifier_annotation() {
+                config.bind(StringKeyedHandlers.class, StringKeyedHandlers.class);
+
+                assertThrows(IllegalComponentException.class, () -> config.getContext());
+                assertThrows(IllegalComponentException.class, () -> new ComponentRef<Map<Dependency, Dependency>>() {
+                });
+            }
+
+            @Test
+            public void should_take_component_of_container_by_position() {
+                assertEquals(Component.of(Dependency.class, null), new ComponentRef<Map<? extends Annotation, Dependency>>() {
+                }.component());
+                assertEquals(Component.of(Dependency.class, null), new ComponentRef<List<Dependency>>() {
+                }.component());
+                assertThrows(IllegalComponentException.class, () -> new ComponentRef<List<Provider<Dependency>>>() {
+                });
+            }
+
+            @Test
+            public void should_retrieve_all_bindings_of_type_as_list_in_binding_order() {
+                List<Dependency> dependencies = config.getContext().get(new ComponentRef<List<Dependency>>() {
+                }).get();
+
+                assertEquals(List.of(dependency, named, skywalker), dependencies);
+                assertThrows(UnsupportedOperationException.class, () -> dependencies.add(dependency));
+            }
+
+            @Test
+            public void should_retrieve_all_bindings_of_type_as_set() {
+                Set<Dependency> dependencies = config.getContext().get(new ComponentRef<Set<Dependency>>() {
+                }).get();
+
+                assertEquals(Set.of(dependency, named, skywalker), dependencies);
+            }
+
+            @Test
+            public void should_retrieve_qualified_bindings_of_type_as_map_by_qualifier() {
+                Map<Annotation, Dependency> dependencies = config.getContext().get(new ComponentRef<Map<Annotation, Dependency>>() {
+                }).get();
+
+                assertEquals(Map.of(new NamedLiteral("named"), named, new SkywalkerLiteral(), skywalker), dependencies);
+            }
+
+            @Test
+            public void should_retrieve_only_binding_with_qualifier_of_qualified_list() throws Exception {
+                ComponentRef<List<Dependency>> ref = ComponentRef.of(Handlers.class.getDeclaredField("list").getGenericType(), new NamedLiteral("named"));
+
+                assertEquals(List.of(named), config.getContext().get(ref).get());
+            }
+
+            @Test
+            public void should_contribute_component_bound_with_several_qualifiers_once() {
+                TestComponent instance = new TestComponent() {
+                };
+                config.bind(TestComponent.class, instance, new NamedLiteral("one"), new SkywalkerLiteral());
+                Context context = config.getContext();
+
+                assertEquals(List.of(instance), context.get(new ComponentRef<List<TestComponent>>() {
+                }).get());
+                assertEquals(2, context.get(new ComponentRef<Map<Annotation, TestComponent>>() {
+                }).get().size());
+            }
+
+            @Test
+            public void should_retrieve_empty_collections_if_type_not_bound() {
+                Context context = config.getContext();
+
+                assertTrue(context.get(new ComponentRef<List<TestComponent>>() {
+                }).get().isEmpty());
+                assertTrue(context.get(new ComponentRef<Map<Annotation, TestComponent>>() {
+                }).get().isEmpty());
+            }
+
+            @Test
+            public void should_inject_all_bindings_of_type() {
+                config.bind(Handlers.class, Handlers.class);
+
+                Handlers handlers = config.getContext().get(ComponentRef.of(Handlers.class)).get();
+
+                assertEquals(List.of(dependency, named, skywalker), handlers.list);
+                assertEquals(Set.of(dependency, named, skywalker), handlers.set);
+                assertEquals(Set.of(named, skywalker), Set.copyOf(handlers.map.values()));
+            }
+        }
+
         @Nested
         public class WithQualifier {
             @Test
@@ -203,7 +576,70 @@ class ContextTest {
                                 new TestLiteral()));
             }
 
+            @Test
+            public void should_intern_component_refs_with_equal_qualifiers() throws Exception {
+                jakarta.inject.Named annotation = InjectionTest.FieldInjection.WithQualifier.InjectField.class.getDeclaredField("dependency").getAnnotation(jakarta.inject.Named.class);
+                config.bind(Dependency.class, new Dependency() {
+                }, new NamedLiteral("ChoseOne"));
+
+                assertSame(ComponentRef.of(Dependency.class, new NamedLiteral("ChoseOne")), ComponentRef.of(Dependency.class, annotation));
+                assertSame(ComponentRef.of(Dependency.class), ComponentRef.of((Type) Dependency.class));
+                assertSame(Component.of(Dependency.class, annotation), ComponentRef.of(Dependency.class, annotation).component());
+                assertNotSame(Component.of(Dependency.class, annotation), Component.of(Dependency.class, null));
+                assertEquals(new Component(Dependency.class, annotation), Component.of(Dependency.class, new NamedLiteral("ChoseOne")));
+            }
+
+            @Test
+            public void should_not_intern_component_refs_only_looked_up() {
+                NamedLiteral qualifier = new NamedLiteral("LookedUp");
+
+                assertNotSame(ComponentRef.of(Dependency.class, qualifier), ComponentRef.of(Dependency.class, qualifier));
+                assertEquals(ComponentRef.of(Dependency.class, qualifier), ComponentRef.of(Dependency.class, new NamedLiteral("LookedUp")));
+                assertNotSame(Component.of(Dependency.class, qualifier), Component.of(Dependency.class, qualifier));
+            }
+
+            @Test
+            public void should_not_keep_class_loader_of_qualifier_reachable_from_parent_type() throws Exception {
+                java.lang.ref.WeakReference<ClassLoader> loader = internChildQualifier();
+                for (int i = 0; i < 50 && loader.get() != null; i++) {
+                    System.gc();
+                    Thread.sleep(10);
+                }
+                assertNull(loader.get());
+                assertTrue(Component.class.isRecord());
+            }
+
+            private java.lang.ref.WeakReference<ClassLoader> internChildQualifier() throws Exception {
+                byte[] bytes;
+                try (var in = NamedLiteral.class.getResourceAsStream("NamedLiteral.class")) {
+                    bytes = in.readAllBytes();
+                }
+                ClassLoader child = new ClassLoader(getClass().getClassLoader()) {
+                    @Override
+                    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+                        return name.equals(NamedLiteral.class.getName()) ? defineClass(name, bytes, 0, bytes.length) : super.loadClass(name, resolve);
+                    }
+                };
+                var constructor = child.loadClass(NamedLiteral.class.getName()).getDeclaredConstructor(String.class);
+                constructor.setAccessible(true);
+                Annotation qualifier = (Annotation) constructor.newInstance("Child");
+                new ContextConfig().bind(Dependency.class, new Dependency() {
+                }, qualifier);
+
+                assertSame(ComponentRef.of(Dependency.class, qualifier), ComponentRef.of(Dependency.class, qualifier));
+                assertEquals(Component.of(Dependency.class, new NamedLiteral("Child")), Component.of(Dependency.class, qualifier));
+                return new java.lang.ref.WeakReference<>(child);
+            }
+
+            @Test
+            public void should_resolve_component_bound_with_literal_via_annotation_instance() throws Exception {
+                Dependency dependency = new Dependency() {
+                };
+                config.bind(Dependency.class, dependency, new NamedLiteral("ChoseOne"));
+                jakarta.inject.Named annotation = InjectionTest.FieldInjection.WithQualifier.InjectField.class.getDeclaredField("dependency").getAnnotation(jakarta.inject.Named.class);
 
+                assertSame(dependency, config.getContext().get(ComponentRef.of(Dependency.class, annotation)).get());
+            }
         }
 
         @Nested
@@ -246,6 +682,29 @@ class ContextTest {
                 assertEquals(PooledProvider.MAX, new HashSet<>(instance).size());
             }
 
+            @Test
+            public void should_pass_bound_component_to_scope_provider() {
+                List<ScopeProvider.Target> targets = new ArrayList<>();
+                config.scope(Singleton.class, new ScopeProvider() {
+                    @Override
+                    public ComponentProvider<?> create(ComponentProvider<?> provider) {
+                        return provider;
+                    }
+
+                    @Override
+                    public ComponentProvider<?> create(Annotation scope, ComponentProvider<?> provider, Target target) {
+                        targets.add(target);
+                        return provider;
+                    }
+                });
+                config.bind(Dependency.class, SingletonAnnotated.class);
+
+                assertEquals(1, targets.size());
+                assertEquals(Component.of(Dependency.class, null), targets.get(0).component());
+                assertSame(ContainerMetrics.NONE, targets.get(0).metrics());
+                assertNotNull(targets.get(0).subject());
+            }
+
             @Test
             public void should_throw_exception_if_multi_scope_provided() {
                 assertThrows(IllegalComponentException.class, () -> config.bind(NotSingleton.class, NotSingleton.class, new SingletonLiteral(), new PooledLiteral()));
@@ -265,6 +724,566 @@ class ContextTest {
                 assertThrows(IllegalComponentException.class, () -> config.bind(NotSingleton.class, NotSingleton.class, new PooledLiteral()));
             }
 
+            @Nested
+            public class Concurrency {
+                static final int THREADS = 64;
+
+                @Singleton
+                static class SlowSingleton {
+                    static final AtomicInteger created = new AtomicInteger();
+
+                    public SlowSingleton() throws InterruptedException {
+                        created.incrementAndGet();
+                        Thread.sleep(10);
+                    }
+                }
+
+                @Singleton
+                static class FailOnceSingleton {
+                    static final AtomicInteger attempts = new AtomicInteger();
+
+                    public FailOnceSingleton() {
+                        if (attempts.incrementAndGet() == 1) {
+                            throw new IllegalStateException();
+                        }
+                    }
+                }
+
+                private <T> List<T> hammer(Context context, Class<T> type, int gets) throws Exception {
+                    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+                    try {
+                        CountDownLatch start = new CountDownLatch(1);
+                        List<Future<T>> futures = IntStream.range(0, gets).mapToObj(i -> executor.submit(() -> {
+                            start.await();
+                            return context.get(ComponentRef.of(type)).get();
+                        })).toList();
+                        start.countDown();
+                        List<T> instances = new ArrayList<>();
+                        for (Future<T> future : futures) {
+                            instances.add(future.get(10, TimeUnit.SECONDS));
+                        }
+                        return instances;
+                    } finally {
+                        executor.shutdownNow();
+                    }
+                }
+
+                @Test
+                public void should_create_singleton_exactly_once_under_contention() throws Exception {
+                    SlowSingleton.created.set(0);
+                    config.bind(SlowSingleton.class, SlowSingleton.class);
+                    Context context = config.getContext();
+
+                    List<SlowSingleton> instances = hammer(context, SlowSingleton.class, THREADS * 16);
+
+                    assertEquals(1, SlowSingleton.created.get());
+                    assertEquals(1, new HashSet<>(instances).size());
+                }
+
+                @Test
+                public void should_retry_singleton_creation_after_failure() throws Exception {
+                    FailOnceSingleton.attempts.set(0);
+                    config.bind(FailOnceSingleton.class, FailOnceSingleton.class);
+                    Context context = config.getContext();
+
+                    assertThrows(IllegalStateException.class, () -> context.get(ComponentRef.of(FailOnceSingleton.class)));
+                    List<FailOnceSingleton> instances = hammer(context, FailOnceSingleton.class, THREADS * 16);
+
+                    assertEquals(2, FailOnceSingleton.attempts.get());
+                    assertEquals(1, new HashSet<>(instances).size());
+                }
+
+                @Singleton
+                static class SlowDictionary {
+                    static CyclicBarrier loading;
+
+                    SlowDictionary() throws Exception {
+                        loading.await(5, TimeUnit.SECONDS);
+                    }
+                }
+
+                @Singleton
+                static class SlowPool {
+                    SlowPool() throws Exception {
+                        SlowDictionary.loading.await(5, TimeUnit.SECONDS);
+                    }
+                }
+
+                @Singleton
+                static class SlowService {
+                    static final AtomicInteger created = new AtomicInteger();
+
+                    @Inject
+                    public SlowService(SlowDictionary dictionary, SlowPool pool) {
+                        created.incrementAndGet();
+                    }
+                }
+
+                @Test
+                public void should_build_independent_singletons_concurrently_before_context_returned() {
+                    SlowDictionary.loading = new CyclicBarrier(2);
+                    SlowService.created.set(0);
+                    ExecutorService executor = Executors.newFixedThreadPool(2);
+                    try {
+                        config.eager(executor);
+                        config.bind(SlowDictionary.class, SlowDictionary.class);
+                        config.bind(SlowPool.class, SlowPool.class);
+                        config.bind(SlowService.class, SlowService.class);
+
+                        Context context = config.getContext();
+
+                        assertEquals(1, SlowService.created.get());
+                        context.get(ComponentRef.of(SlowService.class)).get();
+                        assertEquals(1, SlowService.created.get());
+                    } finally {
+                        executor.shutdownNow();
+                    }
+                }
+
+                @Test
+                public void should_throw_singleton_failure_from_eager_context() {
+                    FailOnceSingleton.attempts.set(0);
+                    config.eager(Runnable::run);
+                    config.bind(FailOnceSingleton.class, FailOnceSingleton.class);
+
+                    assertThrows(IllegalStateException.class, () -> config.getContext());
+                }
+            }
+
+            @Nested
+            public class CacheScope {
+                @CacheScoped(ttl = 10, refreshAfter = 8)
+                static class Credentials {
+                }
+
+                @CacheScoped(ttl = 10, maxUses = 2)
+                static class Token {
+                }
+
+                @CacheScoped(ttl = 0)
+                static class NeverValid {
+                }
+
+                AtomicLong clock = new AtomicLong();
+                List<Runnable> refreshes = new ArrayList<>();
+                Context context;
+
+                @BeforeEach
+                public void before() {
+                    config.scope(CacheScoped.class, new CacheScopeProvider.Scope(refreshes::add, clock::get, CacheEviction.NONE));
+                    config.bind(Credentials.class, Credentials.class);
+                    config.bind(Token.class, Token.class);
+                    context = config.getContext();
+                }
+
+                private <T> T get(Class<T> type) {
+                    return context.get(ComponentRef.of(type)).get();
+                }
+
+                private void elapse(long seconds) {
+                    clock.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+                }
+
+                @Test
+                public void should_retrieve_same_instance_until_expired() {
+                    Token token = get(Token.class);
+                    Credentials credentials = get(Credentials.class);
+                    elapse(9);
+                    assertSame(credentials, get(Credentials.class));
+                    elapse(1);
+
+                    assertNotSame(credentials, get(Credentials.class));
+                    assertNotSame(token, get(Token.class));
+                }
+
+                @Test
+                public void should_return_current_instance_while_refreshing_ahead() {
+                    Credentials credentials = get(Credentials.class);
+                    elapse(8);
+
+                    assertSame(credentials, get(Credentials.class));
+                    assertSame(credentials, get(Credentials.class));
+                    assertEquals(1, refreshes.size());
+
+                    refreshes.remove(0).run();
+                    Credentials refreshed = get(Credentials.class);
+                    assertNotSame(credentials, refreshed);
+                    elapse(9);
+                    assertSame(refreshed, get(Credentials.class));
+                }
+
+                @Test
+                public void should_drop_refresh_finishing_after_instance_was_replaced() {
+                    Credentials credentials = get(Credentials.class);
+                    elapse(8);
+                    assertSame(credentials, get(Credentials.class));
+                    elapse(2);
+                    Credentials replaced = get(Credentials.class);
+
+                    refreshes.remove(0).run();
+
+                    assertNotSame(credentials, replaced);
+                    assertSame(replaced, get(Credentials.class));
+                }
+
+                @Test
+                public void should_evict_least_recently_used_instance_of_qualifier_over_cap() {
+                    ContextConfig config = new ContextConfig();
+                    config.cache(refreshes::add, CacheEviction.leastRecentlyUsed(1));
+                    config.bind(Credentials.class, Credentials.class);
+                    config.bind(Token.class, Token.class);
+                    config.bind(Credentials.class, Credentials.class, new NamedLiteral("other"));
+                    Context context = config.getContext();
+
+                    Credentials credentials = context.get(ComponentRef.of(Credentials.class)).get();
+                    Credentials other = context.get(ComponentRef.of(Credentials.class, new NamedLiteral("other"))).get();
+                    assertSame(credentials, context.get(ComponentRef.of(Credentials.class)).get());
+                    context.get(ComponentRef.of(Token.class)).get();
+
+                    assertNotSame(credentials, context.get(ComponentRef.of(Credentials.class)).get());
+                    assertSame(other, context.get(ComponentRef.of(Credentials.class, new NamedLiteral("other"))).get());
+                }
+
+                @CacheScoped(ttl = 10)
+                static class Session {
+                }
+
+                @Test
+                public void should_not_count_expired_instances_against_eviction_cap() {
+                    ContextConfig config = new ContextConfig();
+                    config.scope(CacheScoped.class, new CacheScopeProvider.Scope(refreshes::add, clock::get, CacheEviction.leastRecentlyUsed(2)));
+                    config.bind(Credentials.class, Credentials.class);
+                    config.bind(Token.class, Token.class);
+                    config.bind(Session.class, Session.class);
+                    Context context = config.getContext();
+
+                    Credentials credentials = context.get(ComponentRef.of(Credentials.class)).get();
+                    elapse(1);
+                    context.get(ComponentRef.of(Token.class)).get();
+                    context.get(ComponentRef.of(Token.class)).get();
+                    elapse(1);
+                    context.get(ComponentRef.of(Session.class)).get();
+
+                    assertSame(credentials, context.get(ComponentRef.of(Credentials.class)).get());
+                }
+
+                @Test
+                public void should_throw_exception_if_eviction_cap_not_positive() {
+                    assertThrows(IllegalArgumentException.class, () -> CacheEviction.leastRecentlyUsed(0));
+                }
+
+                @Test
+                public void should_create_new_instance_once_used_max_times() {
+                    Token token = get(Token.class);
+
+                    assertSame(token, get(Token.class));
+                    assertNotSame(token, get(Token.class));
+                }
+
+                @Test
+                public void should_throw_exception_if_ttl_not_positive() {
+                    assertThrows(IllegalComponentException.class, () -> config.bind(NeverValid.class, NeverValid.class));
+                }
+            }
+
+            @Nested
+            public class BuiltInScopes {
+                @ThreadScoped
+                static class PerThread {
+                }
+
+                @ExecutionScoped
+                static class PerExecution {
+                }
+
+                static class ExecutionHandler {
+                    @Inject
+                    PerExecution execution;
+                }
+
+                @PoolScoped(size = 1)
+                static class PerLease {
+                }
+
+                @ReclaimableScoped
+                static class SoftlyHeld {
+                }
+
+                @ReclaimableScoped(ReclaimableScoped.Strength.WEAK)
+                static class WeaklyHeld {
+                    static final AtomicInteger created = new AtomicInteger();
+
+                    public WeaklyHeld() {
+                        created.incrementAndGet();
+                    }
+                }
+
+                static class LeaseHandler {
+                    @Inject
+                    Lease<PerLease> lease;
+                }
+
+                Context context;
+
+                @BeforeEach
+                public void before() {
+                    config.bind(PerThread.class, PerThread.class);
+                    config.bind(PerExecution.class, PerExecution.class);
+                    config.bind(ExecutionHandler.class, ExecutionHandler.class);
+                    config.bind(PerLease.class, PerLease.class);
+                    config.bind(LeaseHandler.class, LeaseHandler.class);
+                    config.bind(SoftlyHeld.class, SoftlyHeld.class);
+                    config.bind(WeaklyHeld.class, WeaklyHeld.class);
+                    context = config.getContext();
+                }
+
+                @Test
+                public void should_retrieve_same_instance_within_thread() throws Exception {
+                    PerThread instance = context.get(ComponentRef.of(PerThread.class)).get();
+                    assertSame(instance, context.get(ComponentRef.of(PerThread.class)).get());
+
+                    ExecutorService executor = Executors.newSingleThreadExecutor();
+                    try {
+                        assertNotSame(instance, executor.submit(() -> context.get(ComponentRef.of(PerThread.class)).get()).get());
+                    } finally {
+                        executor.shutdown();
+                    }
+                }
+
+                @Test
+                public void should_retrieve_same_instance_within_execution() {
+                    PerExecution instance = ExecutionScope.get(() -> {
+                        PerExecution execution = context.get(ComponentRef.of(PerExecution.class)).get();
+                        assertSame(execution, context.get(ComponentRef.of(PerExecution.class)).get());
+                        assertSame(execution, context.get(ComponentRef.of(ExecutionHandler.class)).get().execution);
+                        return execution;
+                    });
+
+                    assertNotSame(instance, ExecutionScope.get(() -> context.get(ComponentRef.of(PerExecution.class)).get()));
+                }
+
+                @Test
+                public void should_start_nested_execution_without_instances_of_outer_execution() {
+                    ExecutionScope.run(() -> {
+                        PerExecution outer = context.get(ComponentRef.of(PerExecution.class)).get();
+                        assertNotSame(outer, ExecutionScope.get(() -> context.get(ComponentRef.of(PerExecution.class)).get()));
+                        assertSame(outer, context.get(ComponentRef.of(PerExecution.class)).get());
+                    });
+                }
+
+                @Test
+                public void should_throw_exception_if_execution_scoped_component_used_outside_execution() {
+                    ExecutionScope.run(() -> context.get(ComponentRef.of(PerExecution.class)).get());
+
+                    assertThrows(IllegalStateException.class, () -> context.get(ComponentRef.of(PerExecution.class)));
+                }
+
+                @Test
+                public void should_retrieve_same_instance_while_softly_held() {
+                    SoftlyHeld instance = context.get(ComponentRef.of(SoftlyHeld.class)).get();
+
+                    assertSame(instance, context.get(ComponentRef.of(SoftlyHeld.class)).get());
+                }
+
+                @Test
+                public void should_create_weakly_held_instance_again_once_reclaimed() throws Exception {
+                    WeaklyHeld.created.set(0);
+                    WeakReference<WeaklyHeld> instance = new WeakReference<>(context.get(ComponentRef.of(WeaklyHeld.class)).get());
+                    assertSame(instance.get(), context.get(ComponentRef.of(WeaklyHeld.class)).get());
+
+                    for (int i = 0; i < 50 && instance.get() != null; i++) {
+                        System.gc();
+                        Thread.sleep(10);
+                    }
+                    assumeTrue(instance.get() == null);
+
+                    assertNotNull(context.get(ComponentRef.of(WeaklyHeld.class)).get());
+                    assertEquals(2, WeaklyHeld.created.get());
+                }
+
+                private Lease<PerLease> lease() {
+                    return context.get(new ComponentRef<Lease<PerLease>>() {
+                    }).get();
+                }
+
+                @Test
+                public void should_retrieve_instance_given_back_by_closed_lease() {
+                    PerLease instance;
+                    try (Lease<PerLease> lease = lease()) {
+                        instance = lease.get();
+                    }
+
+                    try (Lease<PerLease> lease = lease()) {
+                        assertSame(instance, lease.get());
+                    }
+                }
+
+                @Test
+                public void should_create_new_instance_while_all_instances_leased() {
+                    try (Lease<PerLease> first = lease(); Lease<PerLease> second = lease()) {
+                        assertNotSame(first.get(), second.get());
+                    }
+                }
+
+                @Test
+                public void should_keep_no_more_idle_instances_than_pool_size() {
+                    Lease<PerLease> first = lease();
+                    Lease<PerLease> second = lease();
+                    PerLease kept = first.get();
+                    PerLease dropped = second.get();
+                    first.close();
+                    second.close();
+
+                    try (Lease<PerLease> third = lease(); Lease<PerLease> fourth = lease()) {
+                        assertSame(kept, third.get());
+                        assertNotSame(kept, fourth.get());
+                        assertNotSame(dropped, fourth.get());
+                    }
+                }
+
+                @Test
+                public void should_inject_lease_of_pooled_instance() {
+                    LeaseHandler handler = context.get(ComponentRef.of(LeaseHandler.class)).get();
+                    PerLease instance = handler.lease.get();
+                    handler.lease.close();
+
+                    try (Lease<PerLease> lease = lease()) {
+                        assertSame(instance, lease.get());
+                    }
+                }
+
+                @Test
+                public void should_throw_exception_if_lease_used_after_close() {
+                    Lease<PerLease> lease = lease();
+                    lease.close();
+
+                    assertThrows(IllegalStateException.class, lease::get);
+                }
+            }
+
+            @Nested
+            public class ChildContext {
+                @RequestScoped
+                static class RequestState implements Dependency {
+                }
+
+                static class RequestHandler {
+                    @Inject
+                    Dependency state;
+                    @Inject
+                    Provider<Dependency> provider;
+                }
+
+                @BeforeEach
+                public void before() {
+                    config.bind(Dependency.class, RequestState.class);
+                    config.bind(RequestHandler.class, RequestHandler.class);
+                    config.bind(SingletonAnnotated.class, SingletonAnnotated.class);
+                }
+
+                @Test
+                public void should_hold_request_scoped_instances_per_child() {
+                    Context context = config.getContext();
+                    Context request = context.child();
+                    Context another = context.child();
+
+                    Dependency state = request.get(ComponentRef.of(Dependency.class)).get();
+                    assertSame(state, request.get(ComponentRef.of(Dependency.class)).get());
+                    assertNotSame(state, another.get(ComponentRef.of(Dependency.class)).get());
+                    assertNotSame(state, context.get(ComponentRef.of(Dependency.class)).get());
+                }
+
+                @Test
+                public void should_share_singletons_with_children() {
+                    Context context = config.getContext();
+
+                    assertSame(context.get(ComponentRef.of(SingletonAnnotated.class)).get(),
+                            context.child().get(ComponentRef.of(SingletonAnnotated.class)).get());
+                }
+
+                @Test
+                public void should_inject_request_scoped_instances_of_child() {
+                    Context request = config.getContext().child();
+
+                    RequestHandler handler = request.get(ComponentRef.of(RequestHandler.class)).get();
+                    Dependency state = request.get(ComponentRef.of(Dependency.class)).get();
+                    assertSame(state, handler.state);
+                    assertSame(state, handler.provider.get());
+                    assertSame(state, request.handle(ComponentRef.of(Dependency.class)).get().get());
+                    assertSame(state, request.get(new ComponentRef<Provider<Dependency>>() {
+                    }).get().get());
+                }
+
+                @Singleton
+                static class SingletonHolder {
+                    @Inject
+                    Dependency state;
+                }
+
+                @Singleton
+                static class SingletonHandlerHolder {
+                    @Inject
+                    RequestHandler handler;
+                }
+
+                @Singleton
+                static class SingletonProviderHolder {
+                    @Inject
+                    Provider<Dependency> state;
+                }
+
+                @Test
+                public void should_throw_exception_if_singleton_depends_on_request_scoped_component() {
+                    config.bind(SingletonHolder.class, SingletonHolder.class);
+
+                    ScopeWideningException exception = assertThrows(ScopeWideningException.class, () -> config.getContext());
+                    assertEquals(Component.of(SingletonHolder.class, null), exception.getComponent());
+                    assertEquals(Component.of(Dependency.class, null), exception.getDependency());
+                }
+
+                @Test
+                public void should_throw_exception_if_singleton_depends_on_request_scoped_component_through_unscoped_one() {
+                    config.bind(SingletonHandlerHolder.class, SingletonHandlerHolder.class);
+
+                    ScopeWideningException exception = assertThrows(ScopeWideningException.class, () -> config.getContext());
+                    assertEquals(Component.of(RequestHandler.class, null), exception.getDependency());
+                }
+
+                @Test
+                public void should_throw_exception_if_dependency_of_singleton_is_rebound_as_request_scoped() {
+                    config.bind(Dependency.class, new Dependency() {
+                    });
+                    config.bind(SingletonHolder.class, SingletonHolder.class);
+                    config.getContext();
+                    config.bind(Dependency.class, RequestState.class);
+
+                    assertThrows(ScopeWideningException.class, () -> config.getContext());
+                }
+
+                @Test
+                public void should_reach_request_scoped_component_from_singleton_via_provider() {
+                    config.bind(SingletonProviderHolder.class, SingletonProviderHolder.class);
+                    Context context = config.getContext();
+                    Context request = context.child();
+
+                    SingletonProviderHolder holder = request.get(ComponentRef.of(SingletonProviderHolder.class)).get();
+                    assertSame(holder, context.child().get(ComponentRef.of(SingletonProviderHolder.class)).get());
+                    assertNotNull(holder.state.get());
+                }
+
+                @Test
+                public void should_not_support_child_of_context_without_request_scope() {
+                    Context context = new Context() {
+                        @Override
+                        public <ComponentType> Optional<ComponentType> get(ComponentRef<ComponentType> ref) {
+                            return Optional.empty();
+                        }
+                    };
+
+                    assertThrows(UnsupportedOperationException.class, context::child);
+                }
+            }
+
             @Nested
             public class WithQualifier {
                 @Test
@@ -418,6 +1437,21 @@ class ContextTest {
 
         }
 
+        static class CyclicComponentInjectList implements TestComponent {
+            @Inject
+            List<Dependency> dependencies;
+        }
+
+        @Test
+        public void should_throw_exception_if_cyclic_dependencies_found_through_list() {
+            config.bind(TestComponent.class, CyclicComponentInjectList.class);
+            config.bind(Dependency.class, DependencyDependedOnComponent.class, new NamedLiteral("cyclic"));
+
+            CyclicDependenciesFoundException exception = assertThrows(CyclicDependenciesFoundException.class, () -> config.getContext());
+
+            assertEquals(Set.of(TestComponent.class, Dependency.class), Set.of(exception.getComponents()));
+        }
+
         static class CyclicComponentInjectMethod implements TestComponent {
             @Inject
             void install(Dependency dependency) {
@@ -519,6 +1553,21 @@ class ContextTest {
             }
         }
 
+        static class CyclicDependencyLazyField implements Dependency {
+            @Inject
+            Lazy<TestComponent> component;
+        }
+
+        @Test
+        public void should_not_throw_exception_if_cyclic_dependency_via_lazy() {
+            config.bind(TestComponent.class, CyclicComponentInjectField.class);
+            config.bind(Dependency.class, CyclicDependencyLazyField.class);
+            Context context = config.getContext();
+
+            CyclicComponentInjectField component = (CyclicComponentInjectField) context.get(ComponentRef.of(TestComponent.class)).get();
+            assertTrue(((CyclicDependencyLazyField) component.dependency).component.get() instanceof CyclicComponentInjectField);
+        }
+
         @Test
         public void should_not_throw_exception_if_cyclic_dependency_via_provider() {
             config.bind(TestComponent.class, CyclicComponentInjectConstructor.class);
@@ -527,6 +1576,62 @@ class ContextTest {
             assertTrue(context.get(ComponentRef.of(TestComponent.class)).isPresent());
         }
 
+        @Nested
+        public class LargeGraph {
+            private ComponentRef<Object> node(int index) {
+                return ComponentRef.of(Object.class, new NamedLiteral(String.valueOf(index)));
+            }
+
+            private void bind(int index, ComponentRef<?>... dependencies) {
+                config.bind(Object.class, List.of(new NamedLiteral(String.valueOf(index))), new ComponentProvider<>() {
+                    @Override
+                    public Object get(Context context) {
+                        return new Object();
+                    }
+
+                    @Override
+                    public List<ComponentRef<?>> getDependencies() {
+                        return List.of(dependencies);
+                    }
+                });
+            }
+
+            @Test
+            public void should_check_deep_dependency_chain_without_stack_overflow() {
+                for (int i = 0; i < 20_000; i++) {
+                    bind(i, node(i + 1));
+                }
+                bind(20_000);
+                assertDoesNotThrow(() -> config.getContext());
+            }
+
+            @Test
+            public void should_check_diamond_dependencies_in_linear_time() {
+                int layers = 40;
+                for (int layer = 0; layer < layers; layer++) {
+                    bind(layer * 2, node(layer * 2 + 2), node(layer * 2 + 3));
+                    bind(layer * 2 + 1, node(layer * 2 + 2), node(layer * 2 + 3));
+                }
+                bind(layers * 2);
+                bind(layers * 2 + 1);
+                assertTimeoutPreemptively(Duration.ofSeconds(5), () -> config.getContext());
+            }
+
+            @Test
+            public void should_report_cycle_path_in_dependency_order() {
+                bind(0, node(1));
+                bind(1, node(2));
+                bind(2, node(3));
+                bind(3, node(1));
+
+                CyclicDependenciesFoundException exception = assertThrows(CyclicDependenciesFoundException.class, () -> config.getContext());
+
+                List<Component> path = new ArrayList<>(exception.getPath());
+                Collections.rotate(path, -path.indexOf(node(1).component()));
+                assertEquals(List.of(node(1).component(), node(2).component(), node(3).component()), path);
+            }
+        }
+
         @Nested
         public class WithQualifier {
             @ParameterizedTest
@@ -625,6 +1730,500 @@ class ContextTest {
         }
     }
 
+    @Nested
+    public class Revalidation {
+        @Singleton
+        static class SingletonComponent implements TestComponent {
+            @Inject
+            Dependency dependency;
+
+            @Override
+            public Dependency dependency() {
+                return dependency;
+            }
+        }
+
+        @Singleton
+        static class IndependentSingleton {
+        }
+
+        @Test
+        public void should_carry_over_singletons_not_depending_on_new_bindings() {
+            config.bind(IndependentSingleton.class, IndependentSingleton.class);
+            IndependentSingleton singleton = config.getContext().get(ComponentRef.of(IndependentSingleton.class)).get();
+
+            config.bind(Dependency.class, new Dependency() {
+            });
+            Context context = config.getContext();
+
+            assertSame(singleton, context.get(ComponentRef.of(IndependentSingleton.class)).get());
+            assertTrue(context.get(ComponentRef.of(Dependency.class)).isPresent());
+        }
+
+        @Test
+        public void should_leave_bindings_of_previous_context_untouched_when_carried_over() {
+            config.bind(IndependentSingleton.class, IndependentSingleton.class);
+            Context previous = config.getContext();
+            Provider<IndependentSingleton> handle = previous.handle(ComponentRef.of(IndependentSingleton.class)).get();
+
+            config.bind(Dependency.class, new Dependency() {
+            });
+            Context context = config.getContext();
+
+            assertSame(handle, previous.handle(ComponentRef.of(IndependentSingleton.class)).get());
+            assertNotSame(handle, context.handle(ComponentRef.of(IndependentSingleton.class)).get());
+            assertSame(handle.get(), context.handle(ComponentRef.of(IndependentSingleton.class)).get().get());
+        }
+
+        @Test
+        public void should_renew_singletons_depending_on_rebound_component() {
+            Dependency dependency = new Dependency() {
+            };
+            Dependency rebound = new Dependency() {
+            };
+            config.bind(Dependency.class, dependency);
+            config.bind(TestComponent.class, SingletonComponent.class);
+            Context previous = config.getContext();
+            TestComponent component = previous.get(ComponentRef.of(TestComponent.class)).get();
+
+            config.bind(Dependency.class, rebound);
+            Context context = config.getContext();
+
+            assertSame(rebound, context.get(ComponentRef.of(TestComponent.class)).get().dependency());
+            assertSame(component, previous.get(ComponentRef.of(TestComponent.class)).get());
+            assertSame(dependency, component.dependency());
+        }
+
+        @Test
+        public void should_throw_exception_if_new_binding_closes_cycle_with_validated_component() {
+            config.bind(TestComponent.class, ComponentWithInjectConstructor.class);
+            config.bind(Dependency.class, new Dependency() {
+            });
+            config.getContext();
+
+            config.bind(Dependency.class, DependencyDependedOnComponent.class);
+
+            assertThrows(CyclicDependenciesFoundException.class, () -> config.getContext());
+        }
+
+        @Test
+        public void should_throw_exception_until_dependency_of_new_binding_bound() {
+            config.bind(IndependentSingleton.class, IndependentSingleton.class);
+            config.getContext();
+
+            config.bind(TestComponent.class, SingletonComponent.class);
+            assertThrows(DependencyNotFoundException.class, () -> config.getContext());
+
+            config.bind(Dependency.class, new Dependency() {
+            });
+            assertTrue(config.getContext().get(ComponentRef.of(TestComponent.class)).isPresent());
+        }
+
+        @Test
+        public void should_renew_singletons_injecting_collection_of_type_with_new_binding() {
+            config.bind(Dependency.class, new Dependency() {
+            });
+            config.bind(TestComponent.class, SingletonHandlers.class);
+            TestComponent handlers = config.getContext().get(ComponentRef.of(TestComponent.class)).get();
+
+            config.bind(Dependency.class, new Dependency() {
+            }, new NamedLiteral("added"));
+            Context context = config.getContext();
+
+            assertEquals(1, ((SingletonHandlers) handlers).dependencies.size());
+            assertEquals(2, ((SingletonHandlers) context.get(ComponentRef.of(TestComponent.class)).get()).dependencies.size());
+        }
+
+        @Singleton
+        static class SingletonHandlers implements TestComponent {
+            @Inject
+            List<Dependency> dependencies;
+        }
+
+        @ThreadScoped
+        static class ThreadComponent extends SingletonComponent {
+        }
+
+        @PoolScoped
+        static class PooledComponent extends SingletonComponent {
+        }
+
+        @ExecutionScoped
+        static class ExecutionComponent extends SingletonComponent {
+        }
+
+        @ReclaimableScoped
+        static class ReclaimableComponent extends SingletonComponent {
+        }
+
+        @CacheScoped(ttl = 60)
+        static class CachedComponent extends SingletonComponent {
+        }
+
+        private void assertRenewed(Class<? extends TestComponent> scoped, Function<Context, TestComponent> get) {
+            Dependency dependency = new Dependency() {
+            };
+            Dependency rebound = new Dependency() {
+            };
+            config.bind(Dependency.class, dependency);
+            config.bind(TestComponent.class, scoped);
+            Context previous = config.getContext();
+            TestComponent component = get.apply(previous);
+
+            config.bind(Dependency.class, rebound);
+            Context context = config.getContext();
+
+            assertSame(rebound, get.apply(context).dependency());
+            assertSame(component, get.apply(previous));
+            assertSame(dependency, component.dependency());
+        }
+
+        @Test
+        public void should_renew_thread_scoped_components_depending_on_rebound_component() {
+            assertRenewed(ThreadComponent.class, context -> context.get(ComponentRef.of(TestComponent.class)).get());
+        }
+
+        @Test
+        public void should_renew_pooled_components_depending_on_rebound_component() {
+            assertRenewed(PooledComponent.class, context -> {
+                try (Lease<TestComponent> lease = context.get(new ComponentRef<Lease<TestComponent>>() {
+                }).get()) {
+                    return lease.get();
+                }
+            });
+        }
+
+        @Test
+        public void should_renew_reclaimable_components_depending_on_rebound_component() {
+            assertRenewed(ReclaimableComponent.class, context -> context.get(ComponentRef.of(TestComponent.class)).get());
+        }
+
+        @Test
+        public void should_renew_cache_scoped_components_depending_on_rebound_component() {
+            assertRenewed(CachedComponent.class, context -> context.get(ComponentRef.of(TestComponent.class)).get());
+        }
+
+        @Test
+        public void should_renew_execution_scoped_components_depending_on_rebound_component() {
+            ExecutionScope.run(() -> assertRenewed(ExecutionComponent.class, context -> context.get(ComponentRef.of(TestComponent.class)).get()));
+        }
+
+        @Test
+        public void should_keep_request_scoped_instances_per_context_after_revalidation() {
+            config.bind(Dependency.class, TypeBinding.WithScope.ChildContext.RequestState.class);
+            config.getContext();
+            config.bind(IndependentSingleton.class, IndependentSingleton.class);
+            Context context = config.getContext();
+            Context request = context.child();
+
+            Dependency state = request.get(ComponentRef.of(Dependency.class)).get();
+            assertSame(state, request.get(ComponentRef.of(Dependency.class)).get());
+            assertNotSame(state, context.child().get(ComponentRef.of(Dependency.class)).get());
+        }
+    }
+
+    @Nested
+    public class Freeze {
+        @Test
+        public void should_retrieve_components_from_frozen_context() {
+            Dependency dependency = new Dependency() {
+            };
+            config.bind(Dependency.class, dependency);
+            config.bind(TestComponent.class, ComponentWithInjectConstructor.class);
+
+            Context context = config.freeze();
+
+            assertSame(dependency, ((ComponentWithInjectConstructor) context.get(ComponentRef.of(TestComponent.class)).get()).getDependency());
+            assertSame(context, config.getContext());
+            assertSame(context, config.freeze());
+        }
+
+        @Test
+        public void should_retrieve_every_component_of_large_frozen_context() {
+            for (int i = 0; i < 1000; i++) {
+                config.bind(Dependency.class, new Dependency() {
+                }, new NamedLiteral("dependency" + i));
+            }
+            Context context = config.freeze();
+
+            for (int i = 0; i < 1000; i++) {
+                assertTrue(context.get(ComponentRef.of(Dependency.class, new NamedLiteral("dependency" + i))).isPresent());
+            }
+            assertTrue(context.get(ComponentRef.of(Dependency.class, new NamedLiteral("dependency1000"))).isEmpty());
+            assertTrue(context.get(ComponentRef.of(Dependency.class)).isEmpty());
+        }
+
+        @Test
+        public void should_throw_exception_if_bind_after_freeze() {
+            config.freeze();
+
+            assertThrows(IllegalStateException.class, () -> config.bind(Dependency.class, new Dependency() {
+            }));
+            assertThrows(IllegalStateException.class, () -> config.bind(TestComponent.class, ComponentWithInjectConstructor.class));
+            assertThrows(IllegalStateException.class, () -> config.scope(Pooled.class, PooledProvider::new));
+        }
+
+        @Test
+        public void should_not_freeze_config_failing_dependency_check() {
+            config.bind(TestComponent.class, ComponentWithInjectConstructor.class);
+            assertThrows(DependencyNotFoundException.class, () -> config.freeze());
+
+            config.bind(Dependency.class, new Dependency() {
+            });
+            assertTrue(config.freeze().get(ComponentRef.of(TestComponent.class)).isPresent());
+        }
+    }
+
+    @Nested
+    public class Metrics {
+        InMemoryMetrics metrics = new InMemoryMetrics();
+
+        @BeforeEach
+        public void before() {
+            config.metrics(metrics);
+        }
+
+        static class SlowDependency implements Dependency {
+            @Inject
+            public SlowDependency() throws InterruptedException {
+                Thread.sleep(20);
+            }
+        }
+
+        @Test
+        public void should_count_creations_and_split_self_and_dependency_time() {
+            config.bind(Dependency.class, SlowDependency.class);
+            config.bind(TestComponent.class, TypeBinding.FieldInjection.class);
+            Context context = config.getContext();
+
+            context.get(ComponentRef.of(TestComponent.class)).get();
+            context.get(ComponentRef.of(TestComponent.class)).get();
+
+            InMemoryMetrics.Stats component = metrics.stats(Component.of(TestComponent.class, null));
+            InMemoryMetrics.Stats dependency = metrics.stats(Component.of(Dependency.class, null));
+            assertEquals(2, component.created());
+            assertEquals(2, dependency.created());
+            assertTrue(dependency.selfTime().totalNanos() >= Duration.ofMillis(40).toNanos());
+            assertTrue(component.dependencyTime().totalNanos() >= Duration.ofMillis(40).toNanos());
+            assertTrue(component.selfTime().totalNanos() < component.dependencyTime().totalNanos());
+        }
+
+        @Test
+        public void should_count_singleton_hits_and_misses() {
+            config.bind(Dependency.class, TypeBinding.WithScope.SingletonAnnotated.class);
+            Context context = config.getContext();
+
+            for (int i = 0; i < 3; i++) {
+                context.get(ComponentRef.of(Dependency.class)).get();
+            }
+
+            InMemoryMetrics.Stats singleton = metrics.stats(Component.of(Dependency.class, null));
+            assertEquals(1, singleton.created());
+            assertEquals(1, singleton.singletonMisses());
+            assertEquals(2, singleton.singletonHits());
+        }
+
+        @Test
+        public void should_record_creation_when_async_creation_completes() {
+            config.bind(Dependency.class, SlowDependency.class);
+            config.bind(TestComponent.class, TypeBinding.FieldInjection.class);
+            Context context = config.getContext();
+
+            AtomicInteger executed = new AtomicInteger();
+            context.getAsync(ComponentRef.of(TestComponent.class), command -> {
+                executed.incrementAndGet();
+                ForkJoinPool.commonPool().execute(command);
+            }).get().join();
+
+            InMemoryMetrics.Stats component = metrics.stats(Component.of(TestComponent.class, null));
+            InMemoryMetrics.Stats dependency = metrics.stats(Component.of(Dependency.class, null));
+            assertTrue(executed.get() > 0);
+            assertEquals(1, component.created());
+            assertEquals(1, dependency.created());
+            assertTrue(dependency.selfTime().totalNanos() >= Duration.ofMillis(20).toNanos());
+        }
+
+        @Test
+        public void should_record_validation_time_of_get_context() {
+            config.bind(Dependency.class, SlowDependency.class);
+            config.getContext();
+            config.getContext();
+
+            assertEquals(2, metrics.validation().count());
+        }
+
+        @Test
+        public void should_dump_metrics_of_every_component() {
+            config.bind(Dependency.class, SlowDependency.class, new NamedLiteral("slow"));
+            config.getContext().get(ComponentRef.of(Dependency.class, new NamedLiteral("slow"))).get();
+
+            String dump = metrics.dump();
+            assertTrue(dump, dump.startsWith("validation count=1"));
+            assertTrue(dump, dump.contains(Component.of(Dependency.class, new NamedLiteral("slow")) + " created=1"));
+        }
+    }
+
+    @Nested
+    public class MetadataIndexing {
+        @TempDir
+        Path directory;
+
+        Path file;
+        Dependency dependency = new Dependency() {
+        };
+
+        @BeforeEach
+        public void before() {
+            file = directory.resolve("components.index");
+        }
+
+        private Context start() {
+            ContextConfig config = new ContextConfig();
+            config.index(file);
+            config.bind(Dependency.class, dependency);
+            config.bind(InjectionTest.Engines.InjectEverything.class, InjectionTest.Engines.InjectEverything.class);
+            return config.getContext();
+        }
+
+        @Test
+        public void should_write_index_after_cold_start() {
+            start();
+
+            assertEquals(Optional.of(InjectionProvider.scan(InjectionTest.Engines.InjectEverything.class)),
+                    MetadataIndex.load(file).members(InjectionTest.Engines.InjectEverything.class));
+        }
+
+        @Test
+        public void should_inject_component_created_from_index_on_warm_start() {
+            start();
+            InjectionTest.Engines.InjectEverything component = start().get(ComponentRef.of(InjectionTest.Engines.InjectEverything.class)).get();
+
+            assertSame(dependency, component.constructor);
+            assertSame(dependency, component.field);
+            assertSame(dependency, component.method);
+        }
+
+        @Test
+        public void should_check_dependencies_again_if_graph_changed() {
+            start();
+            ContextConfig config = new ContextConfig();
+            config.index(file);
+            config.bind(InjectionTest.Engines.InjectEverything.class, InjectionTest.Engines.InjectEverything.class);
+
+            assertThrows(DependencyNotFoundException.class, config::getContext);
+        }
+
+        private ContextConfig singletonConfig() {
+            ContextConfig config = new ContextConfig();
+            config.index(file);
+            config.bind(Dependency.class, dependency);
+            config.bind(TestComponent.class, Revalidation.SingletonComponent.class);
+            return config;
+        }
+
+        @Test
+        public void should_renew_singletons_on_first_rebinding_after_warm_start() {
+            singletonConfig().getContext();
+            ContextConfig config = singletonConfig();
+            TestComponent component = config.getContext().get(ComponentRef.of(TestComponent.class)).get();
+
+            Dependency rebound = new Dependency() {
+            };
+            config.bind(Dependency.class, rebound);
+
+            assertSame(rebound, config.getContext().get(ComponentRef.of(TestComponent.class)).get().dependency());
+            assertSame(dependency, component.dependency());
+        }
+
+        @Test
+        public void should_not_use_members_if_class_file_fingerprint_changed() throws Exception {
+            start();
+            byte[] bytes = Files.readAllBytes(file);
+            int fingerprint = 44 + 2 + InjectionTest.Engines.InjectEverything.class.getName().length();
+            bytes[fingerprint] ^= 1;
+            Files.write(file, bytes);
+
+            assertTrue(MetadataIndex.load(file).members(InjectionTest.Engines.InjectEverything.class).isEmpty());
+        }
+
+        @Test
+        public void should_keep_entries_of_components_not_bound_in_later_start() {
+            start();
+            ContextConfig config = new ContextConfig();
+            config.index(file);
+            config.bind(TestComponent.class, TypeBinding.ConstructorInjection.class);
+            config.bind(Dependency.class, dependency);
+            config.getContext();
+
+            MetadataIndex index = MetadataIndex.load(file);
+            assertTrue(index.members(InjectionTest.Engines.InjectEverything.class).isPresent());
+            assertTrue(index.members(TypeBinding.ConstructorInjection.class).isPresent());
+        }
+
+        @Test
+        public void should_check_dependencies_again_if_only_qualifier_of_dependency_changed() {
+            start();
+            ContextConfig config = new ContextConfig();
+            config.index(file);
+            config.bind(Dependency.class, dependency, new NamedLiteral("other"));
+            config.bind(InjectionTest.Engines.InjectEverything.class, InjectionTest.Engines.InjectEverything.class);
+
+            assertThrows(DependencyNotFoundException.class, config::getContext);
+        }
+
+        @Test
+        public void should_scan_again_and_rewrite_unreadable_index() throws Exception {
+            Files.write(file, new byte[]{1, 2, 3});
+
+            assertTrue(start().get(ComponentRef.of(InjectionTest.Engines.InjectEverything.class)).isPresent());
+            assertTrue(MetadataIndex.load(file).members(InjectionTest.Engines.InjectEverything.class).isPresent());
+        }
+    }
+
+    @Nested
+    public class FlightRecorder {
+        @TempDir
+        Path directory;
+
+        @Test
+        public void should_record_container_events() throws Exception {
+            config.bind(Dependency.class, TypeBinding.WithScope.SingletonAnnotated.class);
+            config.bind(TestComponent.class, TypeBinding.ConstructorInjection.class, new NamedLiteral("ChoseOne"));
+            Path file = directory.resolve("container.jfr");
+
+            try (Recording recording = new Recording()) {
+                Stream.of("Create", "Singleton", "Scan", "Validation").forEach(event -> recording.enable("llb.tdd.di." + event));
+                recording.start();
+                config.getContext().get(ComponentRef.of(TestComponent.class, new NamedLiteral("ChoseOne"))).get();
+                recording.stop();
+                recording.dump(file);
+            }
+
+            Map<String, List<RecordedEvent>> events = RecordingFile.readAllEvents(file).stream()
+                    .collect(Collectors.groupingBy(e -> e.getEventType().getName()));
+            assertEquals(2, events.get("llb.tdd.di.Validation").get(0).getInt("components"));
+            assertEquals(Set.of(TypeBinding.ConstructorInjection.class.getName(), TypeBinding.WithScope.SingletonAnnotated.class.getName()),
+                    events.get("llb.tdd.di.Scan").stream().map(e -> e.getClass("type").getName()).collect(Collectors.toSet()));
+
+            RecordedEvent component = event(events.get("llb.tdd.di.Create"), TypeBinding.ConstructorInjection.class);
+            assertEquals(0, component.getInt("depth"));
+            assertTrue(component.getString("qualifier").contains("ChoseOne"));
+            assertNull(component.getString("scope"));
+
+            RecordedEvent dependency = event(events.get("llb.tdd.di.Create"), TypeBinding.WithScope.SingletonAnnotated.class);
+            assertEquals(1, dependency.getInt("depth"));
+            assertNull(dependency.getString("qualifier"));
+            assertTrue(dependency.getString("scope").contains("Singleton"));
+
+            RecordedEvent singleton = event(events.get("llb.tdd.di.Singleton"), TypeBinding.WithScope.SingletonAnnotated.class);
+            assertEquals(1, singleton.getInt("depth"));
+        }
+
+        private RecordedEvent event(List<RecordedEvent> events, Class<?> type) {
+            return events.stream().filter(e -> e.getClass("type").getName().equals(type.getName())).findFirst().orElseThrow();
+        }
+    }
+
 }
 
 record NamedLiteral(String value) implements jakarta.inject.Named {
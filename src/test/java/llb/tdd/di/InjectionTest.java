@@ -6,6 +6,8 @@ import jakarta.inject.Provider;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.mockito.Mockito;
 
 import java.lang.reflect.ParameterizedType;
@@ -71,6 +73,14 @@ public class InjectionTest {
                 assertSame(dependency, instance.dependency);
             }
 
+            @Test
+            public void should_inject_dependency_via_compiled_inject_constructor_without_context_lookup() {
+                ComponentProvider<InjectConstructor> provider = new InjectionProvider<>(InjectConstructor.class).compile(ref -> c -> dependency);
+                Mockito.reset(context);
+                assertSame(dependency, provider.get(context).dependency);
+                Mockito.verifyNoInteractions(context);
+            }
+
             @Test
             public void should_include_dependency_from_inject_constructor() {
                 InjectionProvider<InjectConstructor> provider = new InjectionProvider<>(InjectConstructor.class);
@@ -213,6 +223,14 @@ public class InjectionTest {
                 assertSame(dependency, component.dependency);
             }
 
+            @Test
+            public void should_inject_dependency_via_compiled_field_without_context_lookup() {
+                ComponentProvider<ComponentWithFieldInjection> provider = new InjectionProvider<>(ComponentWithFieldInjection.class).compile(ref -> c -> dependency);
+                Mockito.reset(context);
+                assertSame(dependency, provider.get(context).dependency);
+                Mockito.verifyNoInteractions(context);
+            }
+
             @Test
             public void should_include_dependency_from_field_dependency() {
                 InjectionProvider<ComponentWithFieldInjection> provider = new InjectionProvider<>(ComponentWithFieldInjection.class);
@@ -344,6 +362,14 @@ public class InjectionTest {
                     }
                 }
 
+                @Test
+                public void should_inject_dependency_via_compiled_inject_method_without_context_lookup() {
+                    ComponentProvider<InjectMethodWithDependency> provider = new InjectionProvider<>(InjectMethodWithDependency.class).compile(ref -> c -> dependency);
+                    Mockito.reset(context);
+                    assertSame(dependency, provider.get(context).dependency);
+                    Mockito.verifyNoInteractions(context);
+                }
+
                 @Test
                 public void should_inject_dependencies_via_inject_method_from_superclass() {
                     SubclassWithInjectMethod component = new InjectionProvider<>(SubclassWithInjectMethod.class).get(context);
@@ -376,6 +402,15 @@ public class InjectionTest {
                     assertEquals(0, component.superCalled);
                 }
 
+                @Test
+                public void should_share_scanned_members_of_component_across_providers() {
+                    InjectionProvider<SubclassWithInjectMethod> provider = new InjectionProvider<>(SubclassWithInjectMethod.class);
+
+                    assertSame(provider.members(), new InjectionProvider<>(SubclassWithInjectMethod.class).members());
+                    assertEquals(0, new InjectionProvider<>(SubclassOverrideSuperClassWithNoInject.class).get(context).superCalled);
+                    assertEquals(1, new InjectionProvider<>(SubclassOverrideSuperClassWithInject.class).get(context).superCalled);
+                }
+
                 @Test
                 public void should_include_dependencies_from_inject_method() {
                     InjectionProvider<InjectMethodWithDependency> provider = new InjectionProvider<>(InjectMethodWithDependency.class);
@@ -463,4 +498,92 @@ public class InjectionTest {
             }
         }
     }
+
+    @Nested
+    public class Engines {
+        static class InjectEverything {
+            Dependency constructor;
+            @Inject
+            Dependency field;
+            Dependency method;
+
+            @Inject
+            public InjectEverything(Dependency dependency) {
+                this.constructor = dependency;
+            }
+
+            @Inject
+            void install(Dependency dependency) {
+                this.method = dependency;
+            }
+        }
+
+        @ParameterizedTest
+        @EnumSource(InstantiationEngine.class)
+        public void should_inject_dependencies_with_engine(InstantiationEngine engine) {
+            InjectEverything component = new InjectionProvider<>(InjectEverything.class, engine).get(context);
+            assertSame(dependency, component.constructor);
+            assertSame(dependency, component.field);
+            assertSame(dependency, component.method);
+        }
+
+        @ParameterizedTest
+        @EnumSource(InstantiationEngine.class)
+        public void should_create_component_via_default_constructor_with_engine(InstantiationEngine engine) {
+            assertNotNull(new InjectionProvider<>(ConstructorInjection.Injection.DefaultConstructor.class, engine).get(context));
+        }
+
+        static class PrivateMembers {
+            @Inject
+            private Dependency field;
+            private Dependency method;
+
+            @Inject
+            private PrivateMembers() {
+            }
+
+            @Inject
+            private void install(Dependency dependency) {
+                this.method = dependency;
+            }
+        }
+
+        @ParameterizedTest
+        @EnumSource(InstantiationEngine.class)
+        public void should_inject_private_members_with_engine(InstantiationEngine engine) {
+            PrivateMembers component = new InjectionProvider<>(PrivateMembers.class, engine).get(context);
+            assertSame(dependency, component.field);
+            assertSame(dependency, component.method);
+        }
+
+        static class ThrowingConstructor {
+            @Inject
+            public ThrowingConstructor(Dependency dependency) {
+                throw new IllegalStateException("constructor");
+            }
+        }
+
+        static class ThrowingMethod {
+            @Inject
+            void install(Dependency dependency) {
+                throw new IllegalStateException("method");
+            }
+        }
+
+        @ParameterizedTest
+        @EnumSource(InstantiationEngine.class)
+        public void should_propagate_exception_thrown_by_constructor_with_engine(InstantiationEngine engine) {
+            IllegalStateException exception = assertThrows(IllegalStateException.class,
+                    () -> new InjectionProvider<>(ThrowingConstructor.class, engine).get(context));
+            assertEquals("constructor", exception.getMessage());
+        }
+
+        @ParameterizedTest
+        @EnumSource(InstantiationEngine.class)
+        public void should_propagate_exception_thrown_by_inject_method_with_engine(InstantiationEngine engine) {
+            IllegalStateException exception = assertThrows(IllegalStateException.class,
+                    () -> new InjectionProvider<>(ThrowingMethod.class, engine).get(context));
+            assertEquals("method", exception.getMessage());
+        }
+    }
 }